@@ -0,0 +1,372 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Content addressed cache of copied files on the node of the target directory.
+ *
+ * Files are stored under {@code caches/copyartifact/<algorithm>} in the root directory of the node
+ * as {@code <first two letters of digest>/<digest>}, so a file can be looked up
+ * only with the digest of the source file.
+ * An empty sidecar file {@code <digest>.used} is touched each time the file is used,
+ * and the least recently used files are removed when the cache exceeds its size.
+ *
+ * Cached files are independent read-only copies, never hard links to files in workspaces,
+ * so builds modifying copied files in place cannot modify cached files.
+ * Cached files are copied into the target directory on the node,
+ * and their digests are verified while copied: cached files that do not match their digests are discarded,
+ * and so are files to store whose contents do not match the digests they are stored with.
+ */
+final class AgentCache {
+    /**
+     * Serializes updates of caches from this JVM, as {@link FileLock} works only between processes.
+     */
+    private static final Object LOCK = new Object();
+
+    private final FilePath cacheDir;
+    private final long maxSize;
+    private final DigestAlgorithm algorithm;
+
+    /**
+     * @param cacheDir the directory of the cache
+     * @param maxSize the size of the cache in bytes
+     * @param algorithm the algorithm of digests identifying files
+     */
+    AgentCache(@NonNull FilePath cacheDir, long maxSize, @NonNull DigestAlgorithm algorithm) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * @param targetDir the directory to copy into
+     * @return the cache on the node of the target directory.
+     *     {@code null} if disabled or the node is not available.
+     */
+    @CheckForNull
+    static AgentCache forTarget(@NonNull FilePath targetDir) {
+        CopyArtifactConfiguration config = CopyArtifactConfiguration.get();
+        if (config == null || config.getAgentCacheSize() <= 0) {
+            return null;
+        }
+        Computer computer = targetDir.toComputer();
+        Node node = (computer != null) ? computer.getNode() : null;
+        FilePath root = (node != null) ? node.getRootPath() : null;
+        if (root == null) {
+            return null;
+        }
+        DigestAlgorithm algorithm = CopyArtifactConfiguration.cacheDigestAlgorithm();
+        return new AgentCache(
+                root.child("caches").child("copyartifact").child(algorithm.getName().toLowerCase(Locale.ENGLISH)),
+                config.getAgentCacheSize() * 1024L * 1024L,
+                algorithm
+        );
+    }
+
+    /**
+     * @return the algorithm of digests identifying files
+     */
+    @NonNull
+    DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Materializes cached files into the target directory.
+     *
+     * @param targetDir the directory to copy into
+     * @param entries files to look up
+     * @param listener the listener to report problems
+     * @return paths of files materialized from the cache
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @NonNull
+    Set<String> materialize(@NonNull FilePath targetDir, @NonNull List<Entry> entries, @NonNull TaskListener listener)
+            throws IOException, InterruptedException {
+        if (entries.isEmpty()) {
+            return new HashSet<>();
+        }
+        return targetDir.act(new Materialize(cacheDir.getRemote(), algorithm, entries, listener));
+    }
+
+    /**
+     * Adds copied files to the cache, and removes least recently used files
+     * if the cache exceeds its size.
+     *
+     * @param targetDir the directory copied into
+     * @param entries paths relative to the target directory mapped to their digests
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    void store(@NonNull FilePath targetDir, @NonNull Map<String, String> entries) throws IOException, InterruptedException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        targetDir.act(new Store(cacheDir.getRemote(), algorithm, maxSize, entries));
+    }
+
+    private static Path cached(Path cache, String digest) {
+        return cache.resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private static Path used(Path cached) {
+        return cached.resolveSibling(cached.getFileName() + ".used");
+    }
+
+    private static void touch(Path cached) throws IOException {
+        Path used = used(cached);
+        try {
+            Files.createFile(used);
+        } catch (FileAlreadyExistsException e) {
+            Files.setLastModifiedTime(used, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+    }
+
+    private static void discard(Path cached) throws IOException {
+        // read-only files cannot be deleted on Windows.
+        cached.toFile().setWritable(true);
+        Files.deleteIfExists(cached);
+        Files.deleteIfExists(used(cached));
+    }
+
+    /**
+     * Copies a file, computing the digest of the copied contents.
+     *
+     * @return the digest of the copied contents
+     */
+    private static String copy(Path from, Path to, DigestAlgorithm algorithm) throws IOException {
+        MessageDigest digest = algorithm.newDigest();
+        try (InputStream is = new DigestInputStream(Files.newInputStream(from), digest)) {
+            Files.copy(is, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * A file to look up in the cache.
+     */
+    static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String digest;
+        private final long size;
+        private final FileMetadata metadata;
+
+        /**
+         * @param digest the digest of the source file computed with {@link #getAlgorithm()}
+         * @param size the size of the source file
+         * @param metadata the metadata of the source file, including the path relative to the target directory
+         *     and the partial file to write into, if any
+         */
+        Entry(@NonNull String digest, long size, @NonNull FileMetadata metadata) {
+            this.digest = digest;
+            this.size = size;
+            this.metadata = metadata;
+        }
+    }
+
+    private static final class Materialize extends MasterToSlaveFileCallable<Set<String>> {
+        private static final long serialVersionUID = 1L;
+        private final String cacheDir;
+        private final DigestAlgorithm algorithm;
+        private final List<Entry> entries;
+        private final TaskListener listener;
+
+        Materialize(String cacheDir, DigestAlgorithm algorithm, List<Entry> entries, TaskListener listener) {
+            this.cacheDir = cacheDir;
+            this.algorithm = algorithm;
+            this.entries = entries;
+            this.listener = listener;
+        }
+
+        @Override
+        public Set<String> invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            Path cache = new File(cacheDir).toPath();
+            Set<String> hits = new HashSet<>();
+            for (Entry e : entries) {
+                Path cached = cached(cache, e.digest);
+                try {
+                    if (!Files.isRegularFile(cached, LinkOption.NOFOLLOW_LINKS)) {
+                        continue;
+                    }
+                    if (Files.size(cached) != e.size) {
+                        // corrupted.
+                        discard(cached);
+                        continue;
+                    }
+                    // written to the partial file renamed by applying the metadata,
+                    // so that an interrupted copy never leaves a truncated file.
+                    String partial = e.metadata.getPartial();
+                    File f = FileMetadata.resolve(dir, (partial != null) ? partial : e.metadata.getPath());
+                    hudson.util.IOUtils.mkdirs(f.getParentFile());
+                    Files.deleteIfExists(f.toPath());
+                    // copied with the default mode rather than the read-only mode of the cached file.
+                    if (!e.digest.equals(copy(cached, f.toPath(), algorithm))) {
+                        // corrupted: copied from the source instead.
+                        Files.delete(f.toPath());
+                        discard(cached);
+                        continue;
+                    }
+                    e.metadata.apply(dir, listener);
+                    touch(cached);
+                    hits.add(e.metadata.getPath());
+                } catch (NoSuchFileException x) {
+                    // removed by another build at the same time.
+                }
+            }
+            return hits;
+        }
+    }
+
+    private static final class Store extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final String cacheDir;
+        private final DigestAlgorithm algorithm;
+        private final long maxSize;
+        private final Map<String, String> entries;
+
+        Store(String cacheDir, DigestAlgorithm algorithm, long maxSize, Map<String, String> entries) {
+            this.cacheDir = cacheDir;
+            this.algorithm = algorithm;
+            this.maxSize = maxSize;
+            this.entries = entries;
+        }
+
+        @Override
+        public Void invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            Path cache = new File(cacheDir).toPath();
+            Files.createDirectories(cache);
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                Path f = FileMetadata.resolve(dir, entry.getKey()).toPath();
+                if (!Files.isRegularFile(f, LinkOption.NOFOLLOW_LINKS) || Files.size(f) > maxSize) {
+                    continue;
+                }
+                Path cached = cached(cache, entry.getValue());
+                if (!Files.exists(cached, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.createDirectories(cached.getParent());
+                    // files appear in the cache atomically.
+                    Path tmp = cached.resolveSibling(cached.getFileName() + "." + UUID.randomUUID() + ".tmp");
+                    try {
+                        if (!entry.getValue().equals(copy(f, tmp, algorithm))) {
+                            // not the contents the digest was computed from.
+                            continue;
+                        }
+                        if (!tmp.toFile().setReadOnly()) {
+                            continue;
+                        }
+                        Files.move(tmp, cached, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        tmp.toFile().setWritable(true);
+                        Files.deleteIfExists(tmp);
+                    }
+                }
+                touch(cached);
+            }
+            evict(cache);
+            return null;
+        }
+
+        private void evict(Path cache) throws IOException {
+            synchronized (LOCK) {
+                try (FileChannel lockFile = FileChannel.open(cache.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock lock = lockFile.lock()) {
+                    List<Path> files = new ArrayList<>();
+                    long size = 0;
+                    try (DirectoryStream<Path> dirs = Files.newDirectoryStream(cache, Files::isDirectory)) {
+                        for (Path d : dirs) {
+                            try (DirectoryStream<Path> children = Files.newDirectoryStream(d, p -> !p.getFileName().toString().contains("."))) {
+                                for (Path p : children) {
+                                    files.add(p);
+                                    size += sizeOf(p);
+                                }
+                            }
+                        }
+                    }
+                    if (size <= maxSize) {
+                        return;
+                    }
+                    files.sort(Comparator.comparingLong(Store::lastUsed));
+                    for (Path p : files) {
+                        if (size <= maxSize) {
+                            break;
+                        }
+                        size -= sizeOf(p);
+                        discard(p);
+                    }
+                }
+            }
+        }
+
+        private static long sizeOf(Path cached) {
+            try {
+                return Files.size(cached);
+            } catch (IOException x) {
+                return 0;
+            }
+        }
+
+        private static long lastUsed(Path cached) {
+            try {
+                return Files.getLastModifiedTime(used(cached)).toMillis();
+            } catch (IOException x) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteInputStream;
+import hudson.remoting.VirtualChannel;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Locale;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.VirtualFile;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+/**
+ * Extracts archive artifacts into the target directory while they are transferred,
+ * instead of writing the archive and reading it back to extract it.
+ *
+ * The archive is streamed to the node of the target directory and extracted there as it is received.
+ * Entries are written like copied files, through partial files renamed once complete,
+ * and never outside of the directory the archive is extracted into.
+ */
+final class ArchiveExtraction {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Supported formats of archives.
+     */
+    enum Format {
+        ZIP,
+        TAR,
+        TAR_GZ
+    }
+
+    @CheckForNull
+    private final String includes;
+    @CheckForNull
+    private final String excludes;
+
+    /**
+     * @param includes comma separated Ant GLOB patterns of entries to extract. {@code null} to extract all entries.
+     * @param excludes comma separated Ant GLOB patterns of entries not to extract. Can be null.
+     */
+    ArchiveExtraction(@CheckForNull String includes, @CheckForNull String excludes) {
+        this.includes = Util.fixEmptyAndTrim(includes);
+        this.excludes = Util.fixEmptyAndTrim(excludes);
+    }
+
+    /**
+     * @param name the name of a file
+     * @return the format of the archive, or {@code null} if the file is not a supported archive
+     */
+    @CheckForNull
+    static Format formatOf(@NonNull String name) {
+        String lower = name.toLowerCase(Locale.ENGLISH);
+        if (lower.endsWith(".zip")) {
+            return Format.ZIP;
+        }
+        if (lower.endsWith(".tar")) {
+            return Format.TAR;
+        }
+        if (lower.endsWith(".tar.gz") || lower.endsWith(".tgz")) {
+            return Format.TAR_GZ;
+        }
+        return null;
+    }
+
+    /**
+     * @param patterns comma separated Ant GLOB patterns
+     * @param path a path separated with slashes
+     * @return whether any of the patterns matches the path
+     */
+    static boolean matches(@NonNull String patterns, @NonNull String path) {
+        for (String pattern : patterns.split(",")) {
+            pattern = pattern.trim().replace('\\', '/');
+            if (!pattern.isEmpty() && SelectorUtils.matchPath(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts an archive.
+     *
+     * @param s the archive
+     * @param in the stream to read the archive
+     * @param dir the directory to extract the archive into
+     * @param computeDigest whether to compute the MD5 digest of the archive
+     * @param listener the listener to report problems
+     * @return the result of the extraction
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @NonNull
+    Result extract(@NonNull VirtualFile s, @NonNull InputStream in, @NonNull FilePath dir, boolean computeDigest,
+            @NonNull TaskListener listener) throws IOException, InterruptedException {
+        Format format = formatOf(s.getName());
+        if (format == null) {
+            throw new IOException(s + " is not a supported archive");
+        }
+        return dir.act(new Extract(
+                new RemoteInputStream(in, RemoteInputStream.Flag.GREEDY), format, includes, excludes, computeDigest, listener
+        ));
+    }
+
+    /**
+     * The result of an extraction.
+     */
+    static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+        /**
+         * The number of extracted entries.
+         */
+        final int entries;
+        /**
+         * The MD5 digest of the archive, or {@code null} if not computed.
+         */
+        @CheckForNull
+        final String digest;
+
+        Result(int entries, @CheckForNull String digest) {
+            this.entries = entries;
+            this.digest = digest;
+        }
+    }
+
+    private static final class Extract extends MasterToSlaveFileCallable<Result> {
+        private static final long serialVersionUID = 1L;
+        private final InputStream in;
+        private final Format format;
+        private final String includes;
+        private final String excludes;
+        private final boolean computeDigest;
+        private final TaskListener listener;
+
+        Extract(InputStream in, Format format, String includes, String excludes, boolean computeDigest, TaskListener listener) {
+            this.in = in;
+            this.format = format;
+            this.includes = includes;
+            this.excludes = excludes;
+            this.computeDigest = computeDigest;
+            this.listener = listener;
+        }
+
+        @Override
+        public Result invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            hudson.util.IOUtils.mkdirs(dir);
+            Path root = dir.toPath().toRealPath();
+            MessageDigest md5 = computeDigest ? CopyOperation.md5() : null;
+            int entries = 0;
+            try (InputStream raw = (md5 != null) ? new DigestInputStream(in, md5) : in;
+                 InputStream buffered = new BufferedInputStream(raw, BUFFER_SIZE)) {
+                ArchiveInputStream archive = open(buffered);
+                ArchiveEntry e;
+                while ((e = archive.getNextEntry()) != null) {
+                    String name = e.getName();
+                    if (!archive.canReadEntryData(e) || !isSelected(name)) {
+                        continue;
+                    }
+                    File f = FileMetadata.resolve(dir, name);
+                    checkInside(root, f, name);
+                    if (e.isDirectory()) {
+                        hudson.util.IOUtils.mkdirs(f);
+                        continue;
+                    }
+                    hudson.util.IOUtils.mkdirs(f.getParentFile());
+                    metadataOf(archive, e, name, dir, root).apply(dir, listener);
+                    ++entries;
+                }
+                // the rest of the archive, such as the central directory of a zip file,
+                // so that the digest covers the whole archive.
+                IOUtils.copy(buffered, OutputStream.nullOutputStream());
+            }
+            return new Result(entries, (md5 != null) ? Util.toHexString(md5.digest()) : null);
+        }
+
+        private ArchiveInputStream open(InputStream in) throws IOException {
+            switch (format) {
+                case ZIP:
+                    return new ZipArchiveInputStream(in, StandardCharsets.UTF_8.name(), true, true);
+                case TAR:
+                    return new TarArchiveInputStream(in);
+                case TAR_GZ:
+                    return new TarArchiveInputStream(new GzipCompressorInputStream(in, true));
+                default:
+                    throw new IllegalStateException("Unexpected format " + format);
+            }
+        }
+
+        private boolean isSelected(String name) {
+            String path = name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+            return (includes == null || matches(includes, path)) && (excludes == null || !matches(excludes, path));
+        }
+
+        /**
+         * Writes the contents of a file entry, and returns the metadata to restore.
+         */
+        private FileMetadata metadataOf(ArchiveInputStream archive, ArchiveEntry e, String name, File dir, Path root) throws IOException {
+            if (e instanceof TarArchiveEntry) {
+                TarArchiveEntry te = (TarArchiveEntry) e;
+                if (te.isSymbolicLink()) {
+                    return FileMetadata.symlink(name, te.getLinkName());
+                }
+                if (te.isLink()) {
+                    // a hard link to a file extracted earlier.
+                    String source = te.getLinkName();
+                    File f = FileMetadata.resolve(dir, source);
+                    checkInside(root, f, source);
+                    if (!Files.isRegularFile(f.toPath(), LinkOption.NOFOLLOW_LINKS)) {
+                        // possibly a symbolic link pointing outside of the directory, extracted by an earlier entry.
+                        throw new IOException("Refusing to extract " + name + " as a link to " + source + ", which is not a regular file");
+                    }
+                    return FileMetadata.copyOf(name, source, te.getModTime().getTime(), modeOf(te.getMode()));
+                }
+            }
+            if (e instanceof ZipArchiveEntry && ((ZipArchiveEntry) e).isUnixSymlink()) {
+                return FileMetadata.symlink(name, new String(IOUtils.toByteArray(archive), StandardCharsets.UTF_8));
+            }
+            String partial = PartialFiles.partialPath(name, "extracted");
+            try (OutputStream os = Files.newOutputStream(FileMetadata.resolve(dir, partial).toPath())) {
+                IOUtils.copy(archive, os);
+            }
+            int mode = 0;
+            if (e instanceof TarArchiveEntry) {
+                mode = ((TarArchiveEntry) e).getMode();
+            } else if (e instanceof ZipArchiveEntry) {
+                mode = ((ZipArchiveEntry) e).getUnixMode();
+            }
+            return FileMetadata.file(name, partial, e.getLastModifiedDate().getTime(), modeOf(mode));
+        }
+
+        private static int modeOf(int mode) {
+            mode &= 0777;
+            return (mode != 0) ? mode : -1;
+        }
+
+        /**
+         * Refuses entries written through symbolic links pointing outside of the directory.
+         */
+        private static void checkInside(Path root, File f, String name) throws IOException {
+            File existing = f.getParentFile();
+            while (existing != null && !existing.exists()) {
+                existing = existing.getParentFile();
+            }
+            if (existing == null || !existing.toPath().toRealPath().startsWith(root)) {
+                throw new IOException("Refusing to extract " + name + " outside of " + root);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.Util;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import jenkins.util.VirtualFile;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+/**
+ * Writes files into a single archive in the target directory while they are transferred,
+ * instead of creating a file for each of them.
+ *
+ * The archive is packed on the controller and streamed into a partial file renamed once complete.
+ * MD5 digests of files are computed as they are packed, so that files can still be fingerprinted.
+ */
+final class ArchivePacking {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FILE_TYPE_REGULAR = TarArchiveEntry.DEFAULT_FILE_MODE & ~07777;
+
+    private final VirtualFile srcDir;
+    private final FilePath targetDir;
+    private final String path;
+    private final ArchiveExtraction.Format format;
+    private final CopyThrottle.Session throttle;
+    private final CopyProgress progress;
+
+    /**
+     * @param srcDir the directory to copy from
+     * @param targetDir the directory to copy into
+     * @param path the path of the archive relative to the target directory
+     * @param throttle the limits of reading artifacts
+     * @param progress counts packed files
+     * @throws IOException if the archive is not of a supported format
+     */
+    ArchivePacking(@NonNull VirtualFile srcDir, @NonNull FilePath targetDir, @NonNull String path,
+            @NonNull CopyThrottle.Session throttle, @NonNull CopyProgress progress) throws IOException {
+        ArchiveExtraction.Format format = ArchiveExtraction.formatOf(path);
+        if (format == null) {
+            throw new IOException(path + " is not a zip or tar file");
+        }
+        this.srcDir = srcDir;
+        this.targetDir = targetDir;
+        this.path = path;
+        this.format = format;
+        this.throttle = throttle;
+        this.progress = progress;
+    }
+
+    /**
+     * @param entries entries of the source directory mapped to paths in the archive
+     * @param digested entries to compute MD5 digests of
+     * @param metadata restores the archive once written
+     * @return entries mapped to their MD5 digests, or to {@code null} if not computed.
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @NonNull
+    Map<String, String> pack(@NonNull Map<String, String> entries, @NonNull Set<String> digested,
+            @NonNull MetadataBatch metadata) throws IOException, InterruptedException {
+        String partial = PartialFiles.partialPath(path, "packed");
+        FilePath f = new FilePath(targetDir, partial);
+        Map<String, String> digests = new LinkedHashMap<>();
+        boolean completed = false;
+        try {
+            try (ArchiveOutputStream archive = open(new BufferedOutputStream(PartialFiles.open(f, 0, false), BUFFER_SIZE))) {
+                for (Map.Entry<String, String> entry : entries.entrySet()) {
+                    VirtualFile s = srcDir.child(entry.getKey());
+                    try {
+                        digests.put(entry.getKey(), packOne(archive, s, entry.getValue(), digested.contains(entry.getKey())));
+                    } catch (IOException e) {
+                        throw new IOException("Failed to pack " + s + " into " + new FilePath(targetDir, path), e);
+                    }
+                }
+                archive.finish();
+            }
+            metadata.add(FileMetadata.file(path, partial, 0, -1));
+            metadata.flush();
+            completed = true;
+        } finally {
+            if (!completed) {
+                f.delete();
+            }
+        }
+        return digests;
+    }
+
+    private ArchiveOutputStream open(OutputStream out) throws IOException {
+        switch (format) {
+            case ZIP:
+                ZipArchiveOutputStream zip = new ZipArchiveOutputStream(out);
+                zip.setEncoding(StandardCharsets.UTF_8.name());
+                return zip;
+            case TAR:
+                return tar(out);
+            case TAR_GZ:
+                return tar(new GzipCompressorOutputStream(out));
+            default:
+                throw new IllegalStateException("Unexpected format " + format);
+        }
+    }
+
+    private static TarArchiveOutputStream tar(OutputStream out) {
+        TarArchiveOutputStream tar = new TarArchiveOutputStream(out);
+        tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+        return tar;
+    }
+
+    @CheckForNull
+    private String packOne(ArchiveOutputStream archive, VirtualFile s, String name, boolean fingerprint)
+            throws IOException, InterruptedException {
+        String link = s.readLink();
+        int mode = s.mode();
+        if (archive instanceof ZipArchiveOutputStream) {
+            ZipArchiveEntry ze = new ZipArchiveEntry(name);
+            ze.setTime(s.lastModified());
+            if (link != null) {
+                ze.setUnixMode(UnixStat.LINK_FLAG | 0777);
+                archive.putArchiveEntry(ze);
+                archive.write(link.getBytes(StandardCharsets.UTF_8));
+                archive.closeArchiveEntry();
+                progress.copied(0);
+                return null;
+            }
+            ze.setUnixMode(UnixStat.FILE_FLAG | (mode != -1 ? mode & 0777 : 0644));
+            // applies to the entry put next.
+            ((ZipArchiveOutputStream) archive).setLevel(
+                    WireCompression.isCompressedType(name) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION
+            );
+            archive.putArchiveEntry(ze);
+        } else {
+            if (link != null) {
+                TarArchiveEntry te = new TarArchiveEntry(name, TarConstants.LF_SYMLINK);
+                te.setLinkName(link);
+                archive.putArchiveEntry(te);
+                archive.closeArchiveEntry();
+                progress.copied(0);
+                return null;
+            }
+            TarArchiveEntry te = new TarArchiveEntry(name);
+            te.setSize(s.length());
+            te.setModTime(s.lastModified());
+            te.setMode(FILE_TYPE_REGULAR | (mode != -1 ? mode & 0777 : 0644));
+            archive.putArchiveEntry(te);
+        }
+        String digest = null;
+        long size;
+        try (CopyThrottle.OpenFile file = throttle.open(); InputStream is = CopyOperation.open(s, throttle, false)) {
+            if (fingerprint) {
+                // not to close the archive stream.
+                try (HashingOutputStream os = new HashingOutputStream(CloseShieldOutputStream.wrap(archive), CopyOperation.md5(), s.length())) {
+                    size = IOUtils.copyLarge(is, os);
+                    long waited = System.nanoTime();
+                    digest = Util.toHexString(os.digest());
+                    progress.hashed(System.nanoTime() - waited);
+                }
+            } else {
+                size = IOUtils.copyLarge(is, archive);
+            }
+        }
+        archive.closeArchiveEntry();
+        progress.copied(size);
+        return digest;
+    }
+}
@@ -0,0 +1,685 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import jenkins.util.VirtualFile;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+/**
+ * Listing of the artifacts of a completed build, with their sizes, modes, modification times, link targets
+ * and MD5 digests, and digests identifying files in the artifact cache of nodes if computed with another algorithm.
+ *
+ * Built in the background when a build with artifacts completes, or at the first copy from older builds,
+ * and saved in the directory of the build,
+ * so that copies from the same build do not walk nor hash the artifacts again.
+ * Recently used indexes are also kept in memory.
+ */
+final class ArtifactIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(ArtifactIndex.class.getName());
+
+    static final String FILE_NAME = "copyartifact-index.gz";
+    private static final int VERSION = 3;
+    private static final int MAX_CACHED = 16;
+
+    /**
+     * Indexes keyed by externalizable ids of builds, in the order of access.
+     */
+    private static final ExecutorService INDEXERS = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "CopyArtifact artifact indexer")
+    );
+
+    private static final Map<String, FutureTask<ArtifactIndex>> CACHE = new LinkedHashMap<String, FutureTask<ArtifactIndex>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FutureTask<ArtifactIndex>> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    /**
+     * Serializes replacing index files, which are all written by this controller.
+     */
+    private static final Object WRITE_LOCK = new Object();
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * The name of the algorithm of {@link Entry#cacheDigest}. {@code null} if not computed.
+     */
+    @CheckForNull
+    private final String cacheAlgorithm;
+
+    ArtifactIndex(@NonNull Collection<Entry> entries, @CheckForNull String cacheAlgorithm) {
+        this.cacheAlgorithm = cacheAlgorithm;
+        this.entries = new LinkedHashMap<>();
+        for (Entry e : entries) {
+            this.entries.put(e.path, e);
+        }
+    }
+
+    /**
+     * Lists artifacts with the index of the build.
+     *
+     * @param build the completed build
+     * @param artifacts the archived artifacts of the build
+     * @return the artifacts listed with the index, or {@code artifacts} as it is if those do not exist.
+     * @throws IOException if failed to build the index
+     */
+    @NonNull
+    static VirtualFile indexed(@NonNull Run<?, ?> build, @NonNull VirtualFile artifacts) throws IOException {
+        if (!artifacts.exists()) {
+            // artifacts of the build may have been deleted.
+            return artifacts;
+        }
+        String id = build.getExternalizableId();
+        FutureTask<ArtifactIndex> task;
+        boolean created = false;
+        synchronized (CACHE) {
+            task = CACHE.get(id);
+            if (task == null) {
+                // digests of older builds are computed while copying only when required.
+                task = new FutureTask<>(() -> load(new File(build.getRootDir(), FILE_NAME), artifacts));
+                CACHE.put(id, task);
+                created = true;
+            }
+        }
+        if (created) {
+            task.run();
+        }
+        try {
+            return task.get().wrap(artifacts);
+        } catch (ExecutionException e) {
+            synchronized (CACHE) {
+                CACHE.remove(id, task);
+            }
+            throw new IOException("Failed to index artifacts of " + build, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while indexing artifacts of " + build);
+        }
+    }
+
+    private static ArtifactIndex load(File file, VirtualFile artifacts) throws IOException {
+        if (file.isFile()) {
+            try {
+                return read(file);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Rebuilding the broken index " + file, e);
+            }
+        }
+        ArtifactIndex index = build(artifacts, false);
+        try {
+            // the indexer may have written an index with digests in the meantime.
+            index.write(file, false);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save the index of artifacts " + file, e);
+        }
+        return index;
+    }
+
+    /**
+     * Indexes the artifacts of a completed build in the background.
+     * Artifacts are read within the limits of {@link CopyThrottle} applied to copies from the job.
+     *
+     * @param build the completed build
+     */
+    static void schedule(@NonNull Run<?, ?> build) {
+        String id = build.getExternalizableId();
+        File file = new File(build.getRootDir(), FILE_NAME);
+        VirtualFile artifacts = build.getArtifactManager().root();
+        CopyThrottle.Session throttle = CopyThrottle.start(build.getParent().getFullName());
+        INDEXERS.submit(() -> {
+            try {
+                ArtifactIndex index = build(artifacts, true, cacheAlgorithm(), throttle);
+                index.write(file, true);
+                FutureTask<ArtifactIndex> task = new FutureTask<>(() -> index);
+                task.run();
+                synchronized (CACHE) {
+                    // replaces an index built by a copy in the meantime.
+                    CACHE.put(id, task);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to index artifacts of " + id, e);
+            }
+        });
+    }
+
+    /**
+     * @return the algorithm of the artifact cache of nodes, if enabled with another algorithm than MD5
+     */
+    @CheckForNull
+    private static DigestAlgorithm cacheAlgorithm() {
+        CopyArtifactConfiguration config = CopyArtifactConfiguration.get();
+        if (config == null || config.getAgentCacheSize() <= 0) {
+            return null;
+        }
+        DigestAlgorithm algorithm = CopyArtifactConfiguration.cacheDigestAlgorithm();
+        return (algorithm instanceof DigestAlgorithm.MD5) ? null : algorithm;
+    }
+
+    /**
+     * Walks the artifacts.
+     *
+     * @param artifacts the archived artifacts of the build
+     * @param computeDigests whether to compute MD5 digests of files.
+     *     Files provided from external URLs are not hashed.
+     * @return the index of the artifacts
+     * @throws IOException if failed to list the artifacts
+     */
+    @NonNull
+    static ArtifactIndex build(@NonNull VirtualFile artifacts, boolean computeDigests) throws IOException {
+        return build(artifacts, computeDigests, null, CopyThrottle.UNLIMITED);
+    }
+
+    /**
+     * Walks the artifacts.
+     *
+     * @param artifacts the archived artifacts of the build
+     * @param computeDigests whether to compute MD5 digests of files.
+     *     Files provided from external URLs are not hashed.
+     * @param cacheAlgorithm the algorithm to also compute digests with while computing MD5 digests,
+     *     to look files up in the artifact cache of nodes. {@code null} not to compute.
+     * @param throttle the limits of reading artifacts
+     * @return the index of the artifacts
+     * @throws IOException if failed to list the artifacts
+     */
+    @NonNull
+    static ArtifactIndex build(@NonNull VirtualFile artifacts, boolean computeDigests, @CheckForNull DigestAlgorithm cacheAlgorithm,
+            @NonNull CopyThrottle.Session throttle) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (String path : artifacts.list("**", null, false)) {
+            VirtualFile f = artifacts.child(path);
+            String link = f.readLink();
+            String digest = null;
+            String cacheDigest = null;
+            if (computeDigests && link == null && f.toExternalURL() == null) {
+                MessageDigest md5 = CopyOperation.md5();
+                MessageDigest other = (cacheAlgorithm != null) ? cacheAlgorithm.newDigest() : null;
+                try (CopyThrottle.OpenFile file = open(throttle); InputStream is = throttle.throttle(f.open())) {
+                    byte[] buf = new byte[8192];
+                    int len;
+                    while ((len = is.read(buf)) >= 0) {
+                        md5.update(buf, 0, len);
+                        if (other != null) {
+                            other.update(buf, 0, len);
+                        }
+                    }
+                }
+                digest = Util.toHexString(md5.digest());
+                cacheDigest = (other != null) ? Util.toHexString(other.digest()) : null;
+            }
+            entries.add(new Entry(path, f.length(), f.mode(), f.lastModified(), link, digest, cacheDigest));
+        }
+        return new ArtifactIndex(entries, (cacheAlgorithm != null && computeDigests) ? cacheAlgorithm.getName() : null);
+    }
+
+    private static CopyThrottle.OpenFile open(CopyThrottle.Session throttle) throws IOException {
+        try {
+            return throttle.open();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttled");
+        }
+    }
+
+    @NonNull
+    static ArtifactIndex read(@NonNull File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file.toPath()))))) {
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            String cacheAlgorithm = version >= 3 && in.readBoolean() ? in.readUTF() : null;
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                int mode = in.readInt();
+                long lastModified = in.readLong();
+                String link = in.readBoolean() ? in.readUTF() : null;
+                String digest = version >= 2 && in.readBoolean() ? in.readUTF() : null;
+                String cacheDigest = version >= 3 && in.readBoolean() ? in.readUTF() : null;
+                entries.add(new Entry(path, size, mode, lastModified, link, digest, cacheDigest));
+            }
+            return new ArtifactIndex(entries, cacheAlgorithm);
+        }
+    }
+
+    /**
+     * @param file the file to write into
+     * @param replace whether to replace an existing index.
+     *     {@code false} for indexes without digests, not to replace an index written by the indexer.
+     * @throws IOException if failed to write the index
+     */
+    void write(@NonNull File file, boolean replace) throws IOException {
+        // an index may be written by a copy and by the indexer at the same time.
+        File tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp").toFile();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp.toPath()))))) {
+                out.writeInt(VERSION);
+                out.writeBoolean(cacheAlgorithm != null);
+                if (cacheAlgorithm != null) {
+                    out.writeUTF(cacheAlgorithm);
+                }
+                out.writeInt(entries.size());
+                for (Entry e : entries.values()) {
+                    out.writeUTF(e.path);
+                    out.writeLong(e.size);
+                    out.writeInt(e.mode);
+                    out.writeLong(e.lastModified);
+                    out.writeBoolean(e.link != null);
+                    if (e.link != null) {
+                        out.writeUTF(e.link);
+                    }
+                    out.writeBoolean(e.digest != null);
+                    if (e.digest != null) {
+                        out.writeUTF(e.digest);
+                    }
+                    out.writeBoolean(e.cacheDigest != null);
+                    if (e.cacheDigest != null) {
+                        out.writeUTF(e.cacheDigest);
+                    }
+                }
+            }
+            synchronized (WRITE_LOCK) {
+                if (!replace && file.exists()) {
+                    return;
+                }
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Lists files like {@link VirtualFile#list(String, String, boolean)} without default excludes.
+     *
+     * @param includes comma separated Ant GLOB patterns of files to list
+     * @param excludes comma separated Ant GLOB patterns of files not to list. Can be null.
+     * @return paths of matching files
+     */
+    @NonNull
+    List<String> list(@NonNull String includes, @CheckForNull String excludes) {
+        List<String> paths = new ArrayList<>();
+        for (String path : entries.keySet()) {
+            if (matches(includes, path) && (excludes == null || !matches(excludes, path))) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    private static boolean matches(String patterns, String path) {
+        for (String pattern : patterns.split(",")) {
+            pattern = pattern.trim().replace('\\', '/');
+            if (pattern.endsWith("/")) {
+                // like DirectoryScanner
+                pattern += "**";
+            }
+            if (!pattern.isEmpty() && SelectorUtils.matchPath(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @CheckForNull
+    Entry get(@NonNull String path) {
+        return entries.get(path);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return paths of files mapped to their MD5 digests, for files with digests
+     */
+    @NonNull
+    Map<String, String> getDigests() {
+        Map<String, String> digests = new HashMap<>();
+        for (Entry e : entries.values()) {
+            if (e.digest != null) {
+                digests.put(e.path, e.digest);
+            }
+        }
+        return digests;
+    }
+
+    /**
+     * @param artifacts artifacts possibly listed with an index
+     * @return paths of files mapped to their MD5 digests in the index. Empty if not listed with an index.
+     * @see #indexed(Run, VirtualFile)
+     */
+    @NonNull
+    static Map<String, String> digestsOf(@NonNull VirtualFile artifacts) {
+        return artifacts instanceof Root ? ((Root) artifacts).index.getDigests() : Collections.emptyMap();
+    }
+
+    /**
+     * @param artifacts artifacts possibly listed with an index
+     * @param algorithm the algorithm of digests
+     * @return paths of files mapped to their digests computed with the algorithm in the index.
+     *     Empty if not listed with an index or the index has no digests computed with the algorithm.
+     */
+    @NonNull
+    static Map<String, String> digestsOf(@NonNull VirtualFile artifacts, @NonNull DigestAlgorithm algorithm) {
+        if (algorithm instanceof DigestAlgorithm.MD5) {
+            return digestsOf(artifacts);
+        }
+        if (!(artifacts instanceof Root) || !algorithm.getName().equals(((Root) artifacts).index.cacheAlgorithm)) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> digests = new HashMap<>();
+        for (Entry e : ((Root) artifacts).index.entries.values()) {
+            if (e.cacheDigest != null) {
+                digests.put(e.path, e.cacheDigest);
+            }
+        }
+        return digests;
+    }
+
+    @NonNull
+    VirtualFile wrap(@NonNull VirtualFile artifacts) {
+        return new Root(this, artifacts);
+    }
+
+    static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String path;
+        final long size;
+        final int mode;
+        final long lastModified;
+        @CheckForNull
+        final String link;
+        @CheckForNull
+        final String digest;
+        @CheckForNull
+        final String cacheDigest;
+
+        Entry(@NonNull String path, long size, int mode, long lastModified, @CheckForNull String link,
+                @CheckForNull String digest, @CheckForNull String cacheDigest) {
+            this.path = path;
+            this.size = size;
+            this.mode = mode;
+            this.lastModified = lastModified;
+            this.link = link;
+            this.digest = digest;
+            this.cacheDigest = cacheDigest;
+        }
+    }
+
+    /**
+     * The artifact directory listing files and answering their attributes with the index.
+     * Contents are still read from the artifacts.
+     */
+    private static final class Root extends VirtualFile {
+        private static final long serialVersionUID = 1L;
+        private final ArtifactIndex index;
+        private final VirtualFile delegate;
+
+        Root(ArtifactIndex index, VirtualFile delegate) {
+            this.index = index;
+            this.delegate = delegate;
+        }
+
+        @NonNull
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @NonNull
+        @Override
+        public URI toURI() {
+            return delegate.toURI();
+        }
+
+        @Override
+        public VirtualFile getParent() {
+            return delegate.getParent();
+        }
+
+        @Override
+        public boolean isDirectory() throws IOException {
+            return delegate.isDirectory();
+        }
+
+        @Override
+        public boolean isFile() throws IOException {
+            return delegate.isFile();
+        }
+
+        @Override
+        public boolean exists() throws IOException {
+            return delegate.exists();
+        }
+
+        @NonNull
+        @Override
+        public VirtualFile[] list() throws IOException {
+            return delegate.list();
+        }
+
+        @NonNull
+        @Override
+        public Collection<String> list(@NonNull String includes, @CheckForNull String excludes, boolean useDefaultExcludes) throws IOException {
+            if (useDefaultExcludes) {
+                return delegate.list(includes, excludes, true);
+            }
+            return index.list(includes, excludes);
+        }
+
+        @NonNull
+        @Override
+        public VirtualFile child(@NonNull String name) {
+            Entry e = index.get(name);
+            return e != null ? new Indexed(delegate.child(name), e) : delegate.child(name);
+        }
+
+        @Override
+        public long length() throws IOException {
+            return delegate.length();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return delegate.lastModified();
+        }
+
+        @Override
+        public boolean canRead() throws IOException {
+            return delegate.canRead();
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            return delegate.open();
+        }
+    }
+
+    /**
+     * An artifact answering its attributes with the index.
+     */
+    private static final class Indexed extends VirtualFile {
+        private static final long serialVersionUID = 1L;
+        private final VirtualFile delegate;
+        private final Entry entry;
+
+        Indexed(VirtualFile delegate, Entry entry) {
+            this.delegate = delegate;
+            this.entry = entry;
+        }
+
+        @NonNull
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @NonNull
+        @Override
+        public URI toURI() {
+            return delegate.toURI();
+        }
+
+        @Override
+        public VirtualFile getParent() {
+            return delegate.getParent();
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return false;
+        }
+
+        @Override
+        public boolean isFile() throws IOException {
+            return entry.link == null || delegate.isFile();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @NonNull
+        @Override
+        public VirtualFile[] list() {
+            return new VirtualFile[0];
+        }
+
+        @NonNull
+        @Override
+        public Collection<String> list(@NonNull String includes, @CheckForNull String excludes, boolean useDefaultExcludes) {
+            return Collections.emptyList();
+        }
+
+        @NonNull
+        @Override
+        public VirtualFile child(@NonNull String name) {
+            return delegate.child(name);
+        }
+
+        @Override
+        public long length() {
+            return entry.size;
+        }
+
+        @Override
+        public long lastModified() {
+            return entry.lastModified;
+        }
+
+        @Override
+        public int mode() {
+            return entry.mode;
+        }
+
+        @CheckForNull
+        @Override
+        public String readLink() {
+            return entry.link;
+        }
+
+        @Override
+        public boolean canRead() throws IOException {
+            return delegate.canRead();
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            return delegate.open();
+        }
+
+        @Override
+        public InputStream open(OpenOption... openOptions) throws IOException {
+            return delegate.open(openOptions);
+        }
+
+        @CheckForNull
+        @Override
+        public URL toExternalURL() throws IOException {
+            return delegate.toExternalURL();
+        }
+    }
+
+    /**
+     * Indexes artifacts of builds when they complete, unless disabled in {@link CopyArtifactConfiguration}.
+     */
+    @Extension
+    public static final class IndexOnCompletion extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            CopyArtifactConfiguration config = CopyArtifactConfiguration.get();
+            if (config != null && !config.isIndexOnCompletion()) {
+                return;
+            }
+            if (run.getHasArtifacts()) {
+                schedule(run);
+            }
+        }
+    }
+}
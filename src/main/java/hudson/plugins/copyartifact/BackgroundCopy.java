@@ -0,0 +1,296 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.Functions;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Environment;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.springframework.security.core.Authentication;
+
+/**
+ * Copies started in the background by builds, waited for by {@link WaitForCopyArtifacts}.
+ *
+ * A copy logs into a buffer rather than into the listener of the step that started it,
+ * which may be closed by then, and the log is written to the log of the build when the copy is waited for.
+ * Copies must be waited for before the workspace they copy into is released:
+ * freestyle builds wait for remaining copies when their build steps end,
+ * and copies not waited for when other builds, such as Pipelines, complete are cancelled and fail the build.
+ * A copy failing while not waited for fails the build.
+ */
+final class BackgroundCopy {
+    private static final Logger LOGGER = Logger.getLogger(BackgroundCopy.class.getName());
+
+    private static final ExecutorService COPIERS = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "CopyArtifact background copy")
+    );
+
+    /**
+     * Copies of each running build, keyed by externalizable ids of builds.
+     */
+    private static final Map<String, List<BackgroundCopy>> COPIES = new ConcurrentHashMap<>();
+
+    /**
+     * How long to wait for a cancelled copy to stop when the build completes.
+     */
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Performs a copy.
+     */
+    @FunctionalInterface
+    interface Copy {
+        /**
+         * @param listener the listener to log into
+         * @throws IOException if failed to copy
+         * @throws InterruptedException if cancelled
+         */
+        void copy(@NonNull TaskListener listener) throws IOException, InterruptedException;
+    }
+
+    private final String project;
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+    /**
+     * Released when the copy stops, including when cancelled.
+     */
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean waited;
+    private Future<Void> future;
+
+    private BackgroundCopy(String project) {
+        this.project = project;
+    }
+
+    /**
+     * Starts a copy in the background, with the authentication of the current thread.
+     * Freestyle builds wait for the copy when their build steps end, at the latest.
+     * Should be called from the thread of the build.
+     *
+     * @param build the copying build
+     * @param project the full name of the project to copy from
+     * @param copy performs the copy
+     */
+    static void start(@NonNull Run<?, ?> build, @NonNull String project, @NonNull Copy copy) {
+        if (build instanceof AbstractBuild) {
+            WaitAtEnd.register((AbstractBuild<?, ?>) build);
+        }
+        Authentication auth = Jenkins.getAuthentication2();
+        BackgroundCopy c = new BackgroundCopy(project);
+        TaskListener listener = new StreamTaskListener(c.log, StandardCharsets.UTF_8);
+        c.future = COPIERS.submit(() -> {
+            try (ACLContext ctx = ACL.as2(auth)) {
+                copy.copy(listener);
+                return null;
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                if (!c.waited) {
+                    failed(build);
+                }
+                throw e;
+            } finally {
+                c.stopped.countDown();
+            }
+        });
+        COPIES.computeIfAbsent(build.getExternalizableId(), k -> new CopyOnWriteArrayList<>()).add(c);
+    }
+
+    private static void failed(Run<?, ?> build) {
+        try {
+            build.setResult(Result.FAILURE);
+        } catch (IllegalStateException e) {
+            // completed in the meantime.
+            LOGGER.log(Level.FINE, "Failed to mark " + build + " as failed", e);
+        }
+    }
+
+    /**
+     * Writes the log of the copy so far.
+     */
+    private void writeLog(TaskListener listener) throws IOException {
+        synchronized (log) {
+            log.writeTo(listener.getLogger());
+            log.reset();
+        }
+    }
+
+    /**
+     * Waits for copies started in the background by the build, and writes their logs.
+     * All copies are waited for even if some of them fail.
+     *
+     * @param build the copying build
+     * @param project the full name of the project to wait for copies from. {@code null} for all copies.
+     * @param listener the listener of the copying build
+     * @return the number of copies waited for
+     * @throws IOException if a copy failed. The error of the first failed copy is reported.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     *     Copies not waited for yet keep running.
+     */
+    static int waitFor(@NonNull Run<?, ?> build, @CheckForNull String project, @NonNull TaskListener listener)
+            throws IOException, InterruptedException {
+        List<BackgroundCopy> copies = COPIES.get(build.getExternalizableId());
+        if (copies == null) {
+            return 0;
+        }
+        List<BackgroundCopy> waited = new ArrayList<>();
+        for (BackgroundCopy copy : copies) {
+            if (project == null || project.equals(copy.project)) {
+                copy.waited = true;
+                waited.add(copy);
+            }
+        }
+        IOException failure = null;
+        for (BackgroundCopy copy : waited) {
+            if (!copy.future.isDone()) {
+                listener.getLogger().println(Messages.WaitForCopyArtifacts_Waiting(copy.project));
+            }
+            try {
+                copy.future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = failureOf(copy.project, e.getCause());
+                }
+            } catch (CancellationException e) {
+                if (failure == null) {
+                    failure = new AbortException(Messages.WaitForCopyArtifacts_Cancelled(copy.project));
+                }
+            }
+            copy.writeLog(listener);
+            copies.remove(copy);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return waited.size();
+    }
+
+    private static IOException failureOf(String project, Throwable cause) {
+        if (cause instanceof AbortException) {
+            return (AbortException) cause;
+        }
+        return new IOException(Messages.WaitForCopyArtifacts_Failed(project), cause);
+    }
+
+    /**
+     * Waits for remaining copies of a freestyle build when its build steps end,
+     * while the build still holds its workspace, and fails the build if one of them failed.
+     */
+    private static final class WaitAtEnd extends Environment {
+        static void register(AbstractBuild<?, ?> build) {
+            for (Environment e : build.getEnvironments()) {
+                if (e instanceof WaitAtEnd) {
+                    return;
+                }
+            }
+            build.getEnvironments().add(new WaitAtEnd());
+        }
+
+        @Override
+        public boolean tearDown(AbstractBuild build, BuildListener listener) throws IOException, InterruptedException {
+            try {
+                waitFor(build, null, listener);
+                return true;
+            } catch (AbortException e) {
+                listener.error(e.getMessage());
+                return false;
+            } catch (IOException e) {
+                Functions.printStackTrace(e, listener.error(e.getMessage()));
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Cancels copies of completed builds, and fails the builds if copies were still running or failed.
+     * Completion listeners are notified before Pipeline builds record their results,
+     * while other builds waited for their copies already.
+     */
+    @Extension
+    public static final class CancelOnCompletion extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            List<BackgroundCopy> copies = COPIES.remove(run.getExternalizableId());
+            if (copies == null) {
+                return;
+            }
+            for (BackgroundCopy copy : copies) {
+                if (copy.future.cancel(true)) {
+                    listener.error(Messages.WaitForCopyArtifacts_NotWaited(copy.project));
+                    failed(run);
+                    try {
+                        // not to write into the workspace after the build.
+                        if (!copy.stopped.await(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                            LOGGER.log(Level.WARNING, "The cancelled copy from {0} by {1} did not stop", new Object[] {copy.project, run});
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    try {
+                        copy.future.get();
+                    } catch (ExecutionException e) {
+                        Functions.printStackTrace(e.getCause(), listener.error(Messages.WaitForCopyArtifacts_Failed(copy.project)));
+                        failed(run);
+                    } catch (InterruptedException | CancellationException e) {
+                        // not expected as done.
+                    }
+                }
+                try {
+                    copy.writeLog(listener);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to write the log of the copy from " + copy.project, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+
+/**
+ * Limits the number of copies running at the same time on the controller.
+ *
+ * Copies beyond the limit wait in a queue.
+ * Copies by jobs matching priority patterns go ahead of other copies,
+ * and each lane is served round-robin between the copying jobs,
+ * so that a job starting many copies cannot starve the other jobs.
+ *
+ * @see CopyAdmissionMetrics
+ */
+final class CopyAdmission {
+    /**
+     * Admits everything.
+     */
+    private static final Slot UNLIMITED = () -> { };
+
+    private static final CopyAdmission INSTANCE = new CopyAdmission();
+
+    /**
+     * Waiting copies of each lane by copying jobs, in the order to serve the jobs.
+     */
+    private final Map<String, Deque<Ticket>> priority = new LinkedHashMap<>();
+    private final Map<String, Deque<Ticket>> normal = new LinkedHashMap<>();
+    private int running;
+    private int queued;
+    private long admitted;
+    private long totalWaitNanos;
+
+    /**
+     * @return the admission of copies on this controller
+     */
+    @NonNull
+    static CopyAdmission get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Waits until a copy can start.
+     *
+     * @param job the full name of the copying job
+     * @param listener the listener of the copying build
+     * @return the slot to close once the copy completes
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @NonNull
+    Slot admit(@NonNull String job, @NonNull TaskListener listener) throws InterruptedException {
+        CopyArtifactConfiguration config = CopyArtifactConfiguration.get();
+        int max = (config != null) ? config.getMaxConcurrentCopies() : 0;
+        if (max <= 0) {
+            return UNLIMITED;
+        }
+        boolean prioritized = config.isPriorityJob(job);
+        Ticket ticket = new Ticket();
+        long start = System.nanoTime();
+        synchronized (this) {
+            if (running < max && queued == 0) {
+                return admitted(ticket, start);
+            }
+            (prioritized ? priority : normal).computeIfAbsent(job, k -> new ArrayDeque<>()).add(ticket);
+            ++queued;
+            listener.getLogger().println(Messages.CopyArtifact_WaitingForSlot(running, queued - 1));
+            try {
+                dispatch(max);
+                while (!ticket.granted) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                if (ticket.granted) {
+                    release();
+                } else {
+                    remove(ticket);
+                }
+                throw e;
+            }
+            return admitted(ticket, start);
+        }
+    }
+
+    private Slot admitted(Ticket ticket, long start) {
+        if (!ticket.granted) {
+            ticket.granted = true;
+            ++running;
+        }
+        long waited = System.nanoTime() - start;
+        ++admitted;
+        totalWaitNanos += waited;
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins != null && jenkins.getPlugin("metrics") != null) {
+            CopyAdmissionMetrics.waited(waited);
+        }
+        return this::release;
+    }
+
+    private synchronized void release() {
+        --running;
+        CopyArtifactConfiguration config = CopyArtifactConfiguration.get();
+        dispatch((config != null) ? config.getMaxConcurrentCopies() : 0);
+    }
+
+    /**
+     * Grants slots to waiting copies.
+     *
+     * @param max the maximum number of copies running at the same time. {@code 0} for unlimited.
+     */
+    private void dispatch(int max) {
+        boolean granted = false;
+        while ((max <= 0 || running < max) && queued > 0) {
+            Ticket next = poll(priority);
+            if (next == null) {
+                next = poll(normal);
+            }
+            next.granted = true;
+            ++running;
+            --queued;
+            granted = true;
+        }
+        if (granted) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Takes the next ticket of the first job in the lane, and moves the job to the end of the lane.
+     */
+    private static Ticket poll(Map<String, Deque<Ticket>> lane) {
+        Iterator<Map.Entry<String, Deque<Ticket>>> it = lane.entrySet().iterator();
+        if (!it.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, Deque<Ticket>> first = it.next();
+        it.remove();
+        Ticket ticket = first.getValue().poll();
+        if (!first.getValue().isEmpty()) {
+            lane.put(first.getKey(), first.getValue());
+        }
+        return ticket;
+    }
+
+    private void remove(Ticket ticket) {
+        for (Map<String, Deque<Ticket>> lane : List.of(priority, normal)) {
+            Iterator<Deque<Ticket>> it = lane.values().iterator();
+            while (it.hasNext()) {
+                Deque<Ticket> tickets = it.next();
+                if (tickets.remove(ticket)) {
+                    --queued;
+                    if (tickets.isEmpty()) {
+                        it.remove();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of copies running now
+     */
+    synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return the number of copies waiting for a slot now
+     */
+    synchronized int getQueueDepth() {
+        return queued;
+    }
+
+    /**
+     * @return the average time copies waited for a slot since the controller started, in milliseconds
+     */
+    synchronized long getAverageWaitMillis() {
+        return (admitted > 0) ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / admitted) : 0;
+    }
+
+    /**
+     * A copy waiting for a slot.
+     */
+    private static final class Ticket {
+        boolean granted;
+    }
+
+    /**
+     * A slot held by a running copy.
+     */
+    interface Slot extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
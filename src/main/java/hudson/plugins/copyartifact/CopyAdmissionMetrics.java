@@ -0,0 +1,80 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jenkins.metrics.api.MetricProvider;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Exposes the admission of copies to the metrics plugin, if installed.
+ *
+ * <ul>
+ *   <li>{@code copyartifact.admission.running}: the number of copies running now</li>
+ *   <li>{@code copyartifact.admission.queued}: the number of copies waiting for a slot now</li>
+ *   <li>{@code copyartifact.admission.wait}: the time copies waited for a slot</li>
+ * </ul>
+ *
+ * @see CopyAdmission
+ */
+@Extension(optional = true)
+@Restricted(NoExternalUse.class)
+public class CopyAdmissionMetrics extends MetricProvider {
+    private final Timer wait = new Timer();
+
+    @NonNull
+    @Override
+    public MetricSet getMetricSet() {
+        Gauge<Integer> running = () -> CopyAdmission.get().getRunning();
+        Gauge<Integer> queued = () -> CopyAdmission.get().getQueueDepth();
+        Map<String, Metric> metrics = Map.of(
+                MetricRegistry.name("copyartifact", "admission", "running"), running,
+                MetricRegistry.name("copyartifact", "admission", "queued"), queued,
+                MetricRegistry.name("copyartifact", "admission", "wait"), wait
+        );
+        return () -> metrics;
+    }
+
+    /**
+     * Records the time a copy waited for a slot.
+     * Must be called only when the metrics plugin is installed.
+     *
+     * @param nanos the time waited in nanoseconds
+     */
+    static void waited(long nanos) {
+        for (CopyAdmissionMetrics metrics : ExtensionList.lookup(CopyAdmissionMetrics.class)) {
+            metrics.wait.update(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -45,8 +45,6 @@ import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.Descriptor;
 import hudson.model.EnvironmentContributingAction;
-import hudson.model.Fingerprint;
-import hudson.model.FingerprintMap;
 import hudson.model.Item;
 import hudson.model.ItemGroup;
 import hudson.model.Items;
@@ -58,7 +56,6 @@ import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.model.listeners.ItemListener;
 import hudson.plugins.copyartifact.monitor.LegacyJobConfigMigrationMonitor;
-import hudson.remoting.VirtualChannel;
 import hudson.security.ACL;
 import hudson.security.SecurityRealm;
 import hudson.tasks.BuildStepDescriptor;
@@ -68,19 +65,9 @@ import hudson.util.DescribableList;
 import hudson.util.FormValidation;
 import hudson.util.VariableResolver;
 import hudson.util.XStream2;
-import io.jenkins.plugins.httpclient.RobustHTTPClient;
-import java.io.File;
-import java.io.FileOutputStream;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.PrintStream;
-import java.net.URL;
-import java.security.DigestOutputStream;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -99,6 +86,7 @@ import org.acegisecurity.GrantedAuthority;
 import org.acegisecurity.providers.UsernamePasswordAuthenticationToken;
 import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.Symbol;
+import org.jvnet.localizer.Localizable;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -108,10 +96,7 @@ import org.kohsuke.stapler.StaplerRequest;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
-import jenkins.MasterToSlaveFileCallable;
 import jenkins.util.VirtualFile;
-import org.apache.commons.io.IOUtils;
-import org.apache.http.client.methods.HttpGet;
 
 /**
  * Build step to copy artifacts from another project.
@@ -129,6 +114,38 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
         new GrantedAuthority[]{ SecurityRealm.AUTHENTICATED_AUTHORITY }
     );
 
+    /**
+     * How files are transferred into the target directory.
+     *
+     * @since TODO
+     */
+    public enum TransferMode {
+        /**
+         * Transfer files one by one.
+         *
+         * The default value.
+         */
+        PerFile(Messages._CopyArtifact_TransferMode_PerFile()),
+        /**
+         * Transfer all files as a single archive stream.
+         *
+         * Files provided from external URLs by the artifact manager
+         * are still transferred one by one.
+         */
+        SingleStream(Messages._CopyArtifact_TransferMode_SingleStream()),
+        ;
+
+        private final Localizable displayName;
+
+        TransferMode(Localizable displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName.toString();
+        }
+    }
+
     @Deprecated private transient String projectName;
     private String project;
     private String parameters;
@@ -140,6 +157,18 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
     private Boolean flatten, optional;
     private boolean doNotFingerprintArtifacts;
     private String resultVariableSuffix;
+    private int parallelism;
+    private TransferMode transferMode;
+    private boolean sync;
+    private boolean syncVerifyDigest;
+    private boolean compression;
+    private String extractArchives;
+    private String extractIncludes;
+    private String extractExcludes;
+    private String packInto;
+    private boolean background;
+    private String fingerprintIncludes;
+    private boolean removeStaleFiles;
 
     @Deprecated
     public CopyArtifact(String projectName, String parameters, BuildSelector selector, String filter, String target,
@@ -200,6 +229,11 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
         setFingerprintArtifacts(false);
         setResultVariableSuffix(null);
         setIncludeBuildNumberInTargetPath(false);
+        setParallelism(1);
+        setTransferMode(TransferMode.PerFile);
+        setSync(false);
+        setSyncVerifyDigest(false);
+        setCompression(false);
     }
 
     @DataBoundSetter
@@ -260,6 +294,147 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
         this.resultVariableSuffix = Util.fixEmptyAndTrim(resultVariableSuffix);
     }
 
+    /**
+     * Set the number of files to copy at the same time.
+     * The value is capped by {@link CopyArtifactConfiguration#getMaxParallelism()}.
+     *
+     * @param parallelism the number of files to copy at the same time.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Set how files are transferred into the target directory.
+     *
+     * @param transferMode how files are transferred. {@code null} for {@link TransferMode#PerFile}.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setTransferMode(@CheckForNull TransferMode transferMode) {
+        this.transferMode = (transferMode != TransferMode.PerFile) ? transferMode : null;
+    }
+
+    /**
+     * Set whether to skip files already existing in the target directory
+     * with the same size and modification time.
+     *
+     * @param sync whether to transfer only new or changed files.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * Set whether files skipped by {@link #setSync(boolean)} must also have the same MD5 digest.
+     *
+     * @param syncVerifyDigest whether to compare digests of files considered unchanged.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setSyncVerifyDigest(boolean syncVerifyDigest) {
+        this.syncVerifyDigest = syncVerifyDigest;
+    }
+
+    /**
+     * Set whether to compress files sent to an agent.
+     * Files already compressed are sent as they are.
+     *
+     * @param compression whether to compress files sent to an agent.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * Set archives to extract into the target directory while they are transferred,
+     * instead of copying them.
+     *
+     * @param extractArchives comma separated Ant GLOB patterns of zip or tar archives to extract.
+     *     {@code null} not to extract archives.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setExtractArchives(@CheckForNull String extractArchives) {
+        this.extractArchives = Util.fixEmptyAndTrim(extractArchives);
+    }
+
+    /**
+     * @param extractIncludes comma separated Ant GLOB patterns of entries to extract from archives.
+     *     {@code null} to extract all entries.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setExtractIncludes(@CheckForNull String extractIncludes) {
+        this.extractIncludes = Util.fixEmptyAndTrim(extractIncludes);
+    }
+
+    /**
+     * @param extractExcludes comma separated Ant GLOB patterns of entries not to extract from archives.
+     *     Can be null.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setExtractExcludes(@CheckForNull String extractExcludes) {
+        this.extractExcludes = Util.fixEmptyAndTrim(extractExcludes);
+    }
+
+    /**
+     * Set a single archive to write the copied files into, instead of creating them one by one.
+     *
+     * @param packInto the path of a {@code .zip}, {@code .tar}, {@code .tar.gz} or {@code .tgz} file
+     *     relative to the target directory. {@code null} to create files.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setPackInto(@CheckForNull String packInto) {
+        this.packInto = Util.fixEmptyAndTrim(packInto);
+    }
+
+    /**
+     * Set whether to copy artifacts in the background.
+     * The step returns once the build to copy from is selected,
+     * and {@link WaitForCopyArtifacts} waits for the copy to complete.
+     *
+     * @param background whether to copy artifacts in the background.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setBackground(boolean background) {
+        this.background = background;
+    }
+
+    /**
+     * Set artifacts to fingerprint when fingerprinting artifacts.
+     * Other artifacts are copied without computing their digests.
+     *
+     * @param fingerprintIncludes comma separated Ant GLOB patterns of artifacts to fingerprint.
+     *     {@code null} to fingerprint all artifacts.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setFingerprintIncludes(@CheckForNull String fingerprintIncludes) {
+        this.fingerprintIncludes = Util.fixEmptyAndTrim(fingerprintIncludes);
+    }
+
+    /**
+     * Set whether to remove files copied into the target directory by the previous copy
+     * from the same project, but not selected this time, unless modified since.
+     *
+     * @param removeStaleFiles whether to remove files no longer selected.
+     * @since TODO
+     */
+    @DataBoundSetter
+    public void setRemoveStaleFiles(boolean removeStaleFiles) {
+        this.removeStaleFiles = removeStaleFiles;
+    }
+
     // Upgrade data from old format
     public static class ConverterImpl extends XStream2.PassthruConverter<CopyArtifact> {
         public ConverterImpl(XStream2 xstream) { super(xstream); }
@@ -375,6 +550,108 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
         return this.includeBuildNumberInTargetPath;
     }
 
+    /**
+     * @return the number of files to copy at the same time.
+     * @since TODO
+     */
+    public int getParallelism() {
+        return Math.max(1, parallelism);
+    }
+
+    /**
+     * @return how files are transferred into the target directory.
+     * @since TODO
+     */
+    @NonNull
+    public TransferMode getTransferMode() {
+        return (transferMode != null) ? transferMode : TransferMode.PerFile;
+    }
+
+    /**
+     * @return whether to transfer only new or changed files.
+     * @since TODO
+     */
+    public boolean isSync() {
+        return sync;
+    }
+
+    /**
+     * @return whether to compare digests of files considered unchanged.
+     * @since TODO
+     */
+    public boolean isSyncVerifyDigest() {
+        return syncVerifyDigest;
+    }
+
+    /**
+     * @return whether to compress files sent to an agent.
+     * @since TODO
+     */
+    public boolean isCompression() {
+        return compression;
+    }
+
+    /**
+     * @return comma separated Ant GLOB patterns of archives to extract. {@code null} not to extract archives.
+     * @since TODO
+     */
+    @CheckForNull
+    public String getExtractArchives() {
+        return extractArchives;
+    }
+
+    /**
+     * @return comma separated Ant GLOB patterns of entries to extract from archives. {@code null} for all entries.
+     * @since TODO
+     */
+    @CheckForNull
+    public String getExtractIncludes() {
+        return extractIncludes;
+    }
+
+    /**
+     * @return comma separated Ant GLOB patterns of entries not to extract from archives.
+     * @since TODO
+     */
+    @CheckForNull
+    public String getExtractExcludes() {
+        return extractExcludes;
+    }
+
+    /**
+     * @return the path of the archive to write the copied files into. {@code null} to create files.
+     * @since TODO
+     */
+    @CheckForNull
+    public String getPackInto() {
+        return packInto;
+    }
+
+    /**
+     * @return whether to copy artifacts in the background.
+     * @since TODO
+     */
+    public boolean isBackground() {
+        return background;
+    }
+
+    /**
+     * @return comma separated Ant GLOB patterns of artifacts to fingerprint. {@code null} for all artifacts.
+     * @since TODO
+     */
+    @CheckForNull
+    public String getFingerprintIncludes() {
+        return fingerprintIncludes;
+    }
+
+    /**
+     * @return whether to remove files copied by the previous copy but no longer selected.
+     * @since TODO
+     */
+    public boolean isRemoveStaleFiles() {
+        return removeStaleFiles;
+    }
+
     private boolean upgradeIfNecessary(AbstractProject<?,?> job) throws IOException {
         if (isUpgradeNeeded()) {
             Jenkins jenkins = Jenkins.getInstanceOrNull();
@@ -522,6 +799,21 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
             expandedExcludes = null;
         }
 
+        if (isBackground()) {
+            // copies in the background after this step returns until waitForCopyArtifacts,
+            // logging into its own listener as the listener of this step may be closed.
+            String copiedProject = expandedProject, copiedFilter = expandedFilter, copiedExcludes = expandedExcludes;
+            FilePath copiedDir = targetDir;
+            BackgroundCopy.start(build, copiedProject,
+                    copyListener -> copy(jenkins, src, build, copiedProject, copiedFilter, copiedExcludes, copiedDir, copyListener));
+            console.println(Messages.CopyArtifact_CopyingInBackground(copiedProject));
+        } else {
+            copy(jenkins, src, build, expandedProject, expandedFilter, expandedExcludes, targetDir, listener);
+        }
+    }
+
+    private void copy(Jenkins jenkins, Run<?, ?> src, Run<?, ?> build, String expandedProject, String expandedFilter,
+            @CheckForNull String expandedExcludes, FilePath targetDir, TaskListener listener) throws IOException, InterruptedException {
         if (jenkins.getPlugin("maven-plugin") != null && (src instanceof MavenModuleSetBuild) ) {
         // use classes in the "maven-plugin" plugin as might not be installed
             // Copy artifacts from the build (ArchiveArtifacts build step)
@@ -663,9 +955,36 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
         if (srcDir == null) {
             return isOptional();  // Fail build unless copy is optional
         }
+        if (copiesArchivedArtifacts() && !src.isBuilding()) {
+            // artifacts no longer change.
+            srcDir = ArtifactIndex.indexed(src, srcDir);
+        }
         Map<String, String> fingerprints = null; // entry → MD5
+        CopyOperation operation = new CopyOperation(srcDir, targetDir, listener);
         try {
-            fingerprints = copy(targetDir, srcDir, expandedFilter, expandedExcludes, isFingerprintArtifacts(), listener, isFlatten());
+            operation.setFilter(expandedFilter, expandedExcludes);
+            operation.setFlatten(isFlatten());
+            operation.setFingerprint(isFingerprintArtifacts());
+            operation.setFingerprintIncludes(getFingerprintIncludes());
+            if (isSync() || isRemoveStaleFiles()) {
+                // not to leave a file in the target directory of other copies.
+                // identified only by the project, so that files no longer selected after the filter changed are removed.
+                operation.setManifest(src.getParent().getFullName(), src.getExternalizableId(), isRemoveStaleFiles());
+            }
+            operation.setRecordedDigests(recordedDigests(srcDir));
+            operation.setParallelism(CopyArtifactConfiguration.capParallelism(getParallelism()));
+            operation.setSingleStream(getTransferMode() == TransferMode.SingleStream);
+            operation.setDownloadConnections(CopyArtifactConfiguration.downloadConnections());
+            operation.setConnectionsPerHost(CopyArtifactConfiguration.connectionsPerHost());
+            operation.setSync(isSync(), isSyncVerifyDigest());
+            operation.setCompression(isCompression());
+            operation.setExtract(getExtractArchives(), new ArchiveExtraction(getExtractIncludes(), getExtractExcludes()));
+            operation.setPackInto(getPackInto());
+            operation.setThrottle(CopyThrottle.start(src.getParent().getFullName()));
+            operation.setCache(AgentCache.forTarget(targetDir));
+            try (CopyAdmission.Slot slot = CopyAdmission.get().admit(dst.getParent().getFullName(), listener)) {
+                fingerprints = operation.execute();
+            }
             int cnt = fingerprints.size();
             console.println(Messages.CopyArtifact_Copied(cnt, HyperlinkNote.encodeTo('/'+ src.getParent().getUrl(), src.getParent().getFullDisplayName()),
                     HyperlinkNote.encodeTo('/'+src.getUrl(), Integer.toString(src.getNumber()))));
@@ -673,8 +992,8 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
             return cnt > 0 || isOptional();
         } finally {
             if (fingerprints != null) {
+                long started = System.nanoTime();
                 Map<String, String> fingerprintsShallow = new HashMap<>();
-                FingerprintMap map = Jenkins.get().getFingerprintMap();
                 for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
                     String name = entry.getKey().replaceFirst(".+/", "");
                     String digest = entry.getValue();
@@ -682,113 +1001,42 @@ public class CopyArtifact extends Builder implements SimpleBuildStep {
                         continue;
                     }
                     fingerprintsShallow.put(name, digest);
-                    Fingerprint f = map.getOrCreate(src, name, digest);
-                    f.addFor(src);
-                    f.addFor(dst);
                 }
                 if (!fingerprintsShallow.isEmpty()) {
-                    for (Run<?, ?> r : new Run<?, ?>[] {src, dst}) {
-                        Fingerprinter.FingerprintAction fa = r.getAction(Fingerprinter.FingerprintAction.class);
-                        if (fa != null) {
-                            fa.add(fingerprintsShallow);
-                        } else {
-                            r.addAction(new Fingerprinter.FingerprintAction(r, fingerprintsShallow));
-                        }
-                    }
+                    // added to both builds now, while fingerprints are written in the background.
+                    FingerprintRecorder.get().record(src, dst, fingerprintsShallow);
                 }
+                operation.getProgress().recorded(System.nanoTime() - started);
+                operation.getProgress().summarize();
             }
         }
     }
 
-    private static Map<String, String> copy(FilePath targetDir, VirtualFile srcDir, String expandedFilter, String expandedExcludes, boolean fingerprint, TaskListener listener, boolean flatten) throws IOException, InterruptedException {
-        targetDir.mkdirs();  // Create target if needed
-        Collection<String> list = srcDir.list(expandedFilter.replace('\\', '/'), expandedExcludes != null ? expandedExcludes.replace('\\', '/') : null, false);
-        Map<String, String> fingerprints = new HashMap<>();
-        for (String entry : list) {
-            String digest = copyOne(srcDir.child(entry), new FilePath(targetDir, flatten ? entry.replaceFirst(".+/", "") : entry), fingerprint, listener);
-            fingerprints.put(entry, digest);
-        }
-        return fingerprints;
-    }
-
-    private static MessageDigest md5() {
-        try {
-            return MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException x) {
-            throw new AssertionError(x);
-        }
-    }
-
-    private static String copyOne(VirtualFile s, FilePath d, boolean fingerprint, TaskListener listener) throws IOException, InterruptedException {
-        String link = s.readLink();
-        if (link != null) {
-            FilePath parent = d.getParent();
-            if (parent != null) {
-                parent.mkdirs();
-            }
-            d.symlinkTo(link, listener);
-            return null;
-        }
-        try {
-            URL u = s.toExternalURL();
-            byte[] digest;
-            if (u != null) {
-                if (fingerprint) {
-                    digest = d.act(new CopyURLWithFingerprinting(u, listener));
-                } else {
-                    new RobustHTTPClient().copyFromRemotely(d, u, listener);
-                    digest = null;
-                }
-            } else {
-                if (fingerprint) {
-                    MessageDigest md5 = md5();
-                    try (InputStream is = s.open(); OutputStream os = d.write()) {
-                        IOUtils.copy(is, new DigestOutputStream(os, md5));
-                    }
-                    digest = md5.digest();
-                } else {
-                    try (InputStream is = s.open()) {
-                        d.copyFrom(is);
-                    }
-                    digest = null;
-                }
-            }
-            // FilePath.setLastModifiedIfPossible private; copyToWithPermission OK but would have to calc digest separately:
-            try {
-                d.touch(s.lastModified());
-            } catch (IOException x) {
-                LOGGER.warning(x.getMessage());
-            }
-            int mode = s.mode();
-            if (mode != -1) {
-                d.chmod(mode);
-            }
-            return digest != null ? Util.toHexString(digest) : null;
-        } catch (IOException e) {
-            throw new IOException("Failed to copy " + s + " to " + d, e);
-        }
+    /**
+     * @return whether the selector copies archived artifacts.
+     *     Selectors may copy other files, e.g. the workspace.
+     */
+    private boolean copiesArchivedArtifacts() {
+        return !Util.isOverridden(BuildSelector.class, selector.getClass(), "getArtifacts", Run.class, PrintStream.class)
+                && !Util.isOverridden(BuildSelector.class, selector.getClass(), "getSourceDirectory", Run.class, PrintStream.class);
     }
 
-    private static class CopyURLWithFingerprinting extends MasterToSlaveFileCallable<byte[]> {
-        private static final long serialVersionUID = 1;
-        private final URL u;
-        private final TaskListener listener;
-        private final RobustHTTPClient client = new RobustHTTPClient();
-        CopyURLWithFingerprinting(URL u, TaskListener listener) {
-            this.u = u;
-            this.listener = listener;
-        }
-        @Override
-        public byte[] invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
-            hudson.util.IOUtils.mkdirs(f.getParentFile());
-            MessageDigest md5 = md5();
-            client.connect("download", "download " + RobustHTTPClient.sanitize(u) + " to " + f, c -> c.execute(new HttpGet(u.toString())), response -> {
-                try (InputStream is = response.getEntity().getContent(); OutputStream os = new FileOutputStream(f)) {
-                    IOUtils.copy(is, new DigestOutputStream(os, md5));
-                }
-            }, listener);
-            return md5.digest();
+    /**
+     * Collects MD5 digests of artifacts already computed for the source build, keyed by paths of artifacts.
+     * Only digests in the index of artifacts computed from the archived artifacts when the build completed are used:
+     * records of {@link Fingerprinter.FingerprintAction} are not tied to archived artifacts,
+     * as they include files copied into the build by this step and files fingerprinted in the workspace,
+     * which may have been regenerated since.
+     *
+     * @param srcDir the directory to copy from
+     * @return entries mapped to their MD5 digests
+     * @see ArtifactIndex
+     */
+    private Map<String, String> recordedDigests(VirtualFile srcDir) {
+        if (!copiesArchivedArtifacts()) {
+            return Collections.emptyMap();
         }
+        return ArtifactIndex.digestsOf(srcDir);
     }
 
     /**
@@ -24,17 +24,26 @@
 package hudson.plugins.copyartifact;
 
 import hudson.Extension;
+import hudson.Util;
 import hudson.init.InitMilestone;
 import hudson.init.Initializer;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.GlobalConfigurationCategory;
 import jenkins.model.Jenkins;
 import org.jenkinsci.Symbol;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.QueryParameter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -54,6 +63,78 @@ public class CopyArtifactConfiguration extends GlobalConfiguration {
      */
     @NonNull
     private CopyArtifactCompatibilityMode mode = CopyArtifactCompatibilityMode.PRODUCTION;
+
+    /**
+     * The default value for {@link #getMaxParallelism()}.
+     */
+    public static final int DEFAULT_MAX_PARALLELISM = 8;
+
+    /**
+     * Upper limit of files copied at the same time by a single copy step.
+     */
+    private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+
+    /**
+     * The default value for {@link #getDownloadConnections()}.
+     */
+    public static final int DEFAULT_DOWNLOAD_CONNECTIONS = 4;
+
+    /**
+     * Number of connections to download a single file from an external URL in byte ranges.
+     */
+    private int downloadConnections = DEFAULT_DOWNLOAD_CONNECTIONS;
+
+    /**
+     * The default value for {@link #getConnectionsPerHost()}.
+     */
+    public static final int DEFAULT_CONNECTIONS_PER_HOST = 16;
+
+    /**
+     * Maximum number of connections of a copy step to each host to download files from external URLs.
+     */
+    private int connectionsPerHost = DEFAULT_CONNECTIONS_PER_HOST;
+
+    /**
+     * Disk budget in megabytes of the artifact cache on each node. {@code 0} disables the cache.
+     */
+    private int agentCacheSize;
+
+    /**
+     * Name of the {@link DigestAlgorithm} identifying files in the artifact cache of nodes.
+     */
+    private String cacheDigestAlgorithm;
+
+    /**
+     * Whether to index artifacts of builds and compute their digests when builds complete.
+     */
+    private boolean indexOnCompletion = true;
+
+    /**
+     * Bandwidth in megabytes per second shared by all copies to read artifacts. {@code 0} for unlimited.
+     */
+    private int maxCopyBandwidth;
+
+    /**
+     * Bandwidth in megabytes per second shared by copies of artifacts of the same job. {@code 0} for unlimited.
+     */
+    private int maxCopyBandwidthPerJob;
+
+    /**
+     * Number of artifacts all copies can read at the same time. {@code 0} for unlimited.
+     */
+    private int maxOpenFiles;
+
+    /**
+     * Number of copies running at the same time on the controller. {@code 0} for unlimited.
+     */
+    private int maxConcurrentCopies;
+
+    /**
+     * Regular expressions, one per line, of full names of jobs whose copies go ahead of others.
+     */
+    private String priorityJobs;
+
+    private transient volatile List<Pattern> priorityJobPatterns;
     
     /**
      * ctor.
@@ -168,6 +249,321 @@ public class CopyArtifactConfiguration extends GlobalConfiguration {
         return CopyArtifactCompatibilityMode.MIGRATION.equals(config.getMode());
     }
     
+    /**
+     * @return the upper limit of files copied at the same time by a single copy step.
+     * @since TODO
+     */
+    public int getMaxParallelism() {
+        return Math.max(1, maxParallelism);
+    }
+
+    /**
+     * @param maxParallelism the upper limit of files copied at the same time by a single copy step.
+     * @since TODO
+     */
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = Math.max(1, maxParallelism);
+        save();
+    }
+
+    /**
+     * @return the number of connections to download a single file from an external URL in byte ranges.
+     * @since TODO
+     */
+    public int getDownloadConnections() {
+        return Math.max(1, downloadConnections);
+    }
+
+    /**
+     * @param downloadConnections the number of connections to download a single file from an external URL.
+     *     {@code 1} not to download in byte ranges.
+     * @since TODO
+     */
+    public void setDownloadConnections(int downloadConnections) {
+        this.downloadConnections = Math.max(1, downloadConnections);
+        save();
+    }
+
+    /**
+     * @return the number of connections to download a single file from an external URL,
+     *     or the default value if the configuration is not available.
+     */
+    static int downloadConnections() {
+        CopyArtifactConfiguration config = get();
+        return (config != null) ? config.getDownloadConnections() : DEFAULT_DOWNLOAD_CONNECTIONS;
+    }
+
+    /**
+     * @return the maximum number of connections of a copy step to each host to download files from external URLs.
+     * @since TODO
+     */
+    public int getConnectionsPerHost() {
+        return Math.max(1, connectionsPerHost);
+    }
+
+    /**
+     * @param connectionsPerHost the maximum number of connections of a copy step to each host
+     *     to download files from external URLs.
+     * @since TODO
+     */
+    public void setConnectionsPerHost(int connectionsPerHost) {
+        this.connectionsPerHost = Math.max(1, connectionsPerHost);
+        save();
+    }
+
+    /**
+     * @return the maximum number of connections of a copy step to each host,
+     *     or the default value if the configuration is not available.
+     */
+    static int connectionsPerHost() {
+        CopyArtifactConfiguration config = get();
+        return (config != null) ? config.getConnectionsPerHost() : DEFAULT_CONNECTIONS_PER_HOST;
+    }
+
+    /**
+     * @return the disk budget in megabytes of the artifact cache on each node. {@code 0} if disabled.
+     * @since TODO
+     */
+    public int getAgentCacheSize() {
+        return Math.max(0, agentCacheSize);
+    }
+
+    /**
+     * @param agentCacheSize the disk budget in megabytes of the artifact cache on each node.
+     *     {@code 0} to disable the cache.
+     * @since TODO
+     */
+    public void setAgentCacheSize(int agentCacheSize) {
+        this.agentCacheSize = Math.max(0, agentCacheSize);
+        save();
+    }
+
+    /**
+     * @return the name of the {@link DigestAlgorithm} identifying files in the artifact cache of nodes.
+     * @since TODO
+     */
+    @NonNull
+    public String getCacheDigestAlgorithm() {
+        return (cacheDigestAlgorithm != null) ? cacheDigestAlgorithm : "MD5";
+    }
+
+    /**
+     * @param cacheDigestAlgorithm the name of the {@link DigestAlgorithm} identifying files in the artifact cache of nodes.
+     * @since TODO
+     */
+    public void setCacheDigestAlgorithm(@CheckForNull String cacheDigestAlgorithm) {
+        this.cacheDigestAlgorithm = Util.fixEmptyAndTrim(cacheDigestAlgorithm);
+        save();
+    }
+
+    /**
+     * @return available digest algorithms.
+     */
+    public ListBoxModel doFillCacheDigestAlgorithmItems() {
+        ListBoxModel items = new ListBoxModel();
+        for (DigestAlgorithm algorithm : DigestAlgorithm.all()) {
+            items.add(algorithm.getName());
+        }
+        return items;
+    }
+
+    /**
+     * @return the algorithm to identify files in the artifact cache of nodes.
+     *     MD5 if the configured one is not available.
+     */
+    @NonNull
+    static DigestAlgorithm cacheDigestAlgorithm() {
+        CopyArtifactConfiguration config = get();
+        DigestAlgorithm algorithm = DigestAlgorithm.byName((config != null) ? config.getCacheDigestAlgorithm() : null);
+        return (algorithm != null) ? algorithm : new DigestAlgorithm.MD5();
+    }
+
+    /**
+     * @return whether to index artifacts of builds and compute their digests when builds complete.
+     * @since TODO
+     */
+    public boolean isIndexOnCompletion() {
+        return indexOnCompletion;
+    }
+
+    /**
+     * @param indexOnCompletion whether to index artifacts of builds and compute their digests when builds complete.
+     *     When disabled, artifacts are indexed without digests at the first copy.
+     * @since TODO
+     */
+    public void setIndexOnCompletion(boolean indexOnCompletion) {
+        this.indexOnCompletion = indexOnCompletion;
+        save();
+    }
+
+    /**
+     * @return the bandwidth in megabytes per second shared by all copies to read artifacts. {@code 0} for unlimited.
+     * @since TODO
+     */
+    public int getMaxCopyBandwidth() {
+        return Math.max(0, maxCopyBandwidth);
+    }
+
+    /**
+     * @param maxCopyBandwidth the bandwidth in megabytes per second shared by all copies to read artifacts.
+     *     {@code 0} for unlimited.
+     * @since TODO
+     */
+    public void setMaxCopyBandwidth(int maxCopyBandwidth) {
+        this.maxCopyBandwidth = Math.max(0, maxCopyBandwidth);
+        save();
+    }
+
+    /**
+     * @return the bandwidth in megabytes per second shared by copies of artifacts of the same job.
+     *     {@code 0} for unlimited.
+     * @since TODO
+     */
+    public int getMaxCopyBandwidthPerJob() {
+        return Math.max(0, maxCopyBandwidthPerJob);
+    }
+
+    /**
+     * @param maxCopyBandwidthPerJob the bandwidth in megabytes per second shared by copies of artifacts of the same job.
+     *     {@code 0} for unlimited.
+     * @since TODO
+     */
+    public void setMaxCopyBandwidthPerJob(int maxCopyBandwidthPerJob) {
+        this.maxCopyBandwidthPerJob = Math.max(0, maxCopyBandwidthPerJob);
+        save();
+    }
+
+    /**
+     * @return the number of artifacts all copies can read at the same time. {@code 0} for unlimited.
+     * @since TODO
+     */
+    public int getMaxOpenFiles() {
+        return Math.max(0, maxOpenFiles);
+    }
+
+    /**
+     * @param maxOpenFiles the number of artifacts all copies can read at the same time. {@code 0} for unlimited.
+     * @since TODO
+     */
+    public void setMaxOpenFiles(int maxOpenFiles) {
+        this.maxOpenFiles = Math.max(0, maxOpenFiles);
+        save();
+    }
+
+    /**
+     * @return the number of copies running at the same time on the controller. {@code 0} for unlimited.
+     * @since TODO
+     */
+    public int getMaxConcurrentCopies() {
+        return Math.max(0, maxConcurrentCopies);
+    }
+
+    /**
+     * @param maxConcurrentCopies the number of copies running at the same time on the controller.
+     *     {@code 0} for unlimited.
+     * @since TODO
+     */
+    public void setMaxConcurrentCopies(int maxConcurrentCopies) {
+        this.maxConcurrentCopies = Math.max(0, maxConcurrentCopies);
+        save();
+    }
+
+    /**
+     * @return regular expressions, one per line, of full names of jobs whose copies go ahead of others.
+     * @since TODO
+     */
+    @CheckForNull
+    public String getPriorityJobs() {
+        return priorityJobs;
+    }
+
+    /**
+     * @param priorityJobs regular expressions, one per line, of full names of jobs whose copies go ahead of others.
+     * @since TODO
+     */
+    public void setPriorityJobs(@CheckForNull String priorityJobs) {
+        this.priorityJobs = Util.fixEmptyAndTrim(priorityJobs);
+        this.priorityJobPatterns = null;
+        save();
+    }
+
+    /**
+     * @param value regular expressions to validate
+     * @return the validation result
+     */
+    public FormValidation doCheckPriorityJobs(@QueryParameter String value) {
+        try {
+            compile(value);
+            return FormValidation.ok();
+        } catch (PatternSyntaxException e) {
+            return FormValidation.error(e.getMessage());
+        }
+    }
+
+    /**
+     * @param job the full name of a copying job
+     * @return whether copies of the job go ahead of others
+     */
+    boolean isPriorityJob(@NonNull String job) {
+        List<Pattern> patterns = priorityJobPatterns;
+        if (patterns == null) {
+            try {
+                patterns = compile(priorityJobs);
+            } catch (PatternSyntaxException e) {
+                LOGGER.log(Level.WARNING, "Invalid pattern of priority jobs", e);
+                patterns = List.of();
+            }
+            priorityJobPatterns = patterns;
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(job).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> compile(@CheckForNull String patterns) {
+        List<Pattern> compiled = new ArrayList<>();
+        for (String line : Util.fixNull(patterns).split("\\r?\\n")) {
+            if (!line.isBlank()) {
+                compiled.add(Pattern.compile(line.trim()));
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * @return the current state of the admission of copies, to tune its configuration.
+     */
+    @Restricted(NoExternalUse.class)
+    public String getAdmissionStatus() {
+        CopyAdmission admission = CopyAdmission.get();
+        return Messages.CopyArtifactConfiguration_AdmissionStatus(
+                admission.getRunning(), admission.getQueueDepth(), admission.getAverageWaitMillis()
+        );
+    }
+
+    /**
+     * @return the current state of the throttle of copies, to tune its configuration.
+     */
+    @Restricted(NoExternalUse.class)
+    public String getThrottleStatus() {
+        return Messages.CopyArtifactConfiguration_ThrottleStatus(CopyThrottle.getWaiting(), CopyThrottle.getTotalWaitMillis());
+    }
+
+    /**
+     * Caps the number of files to copy at the same time requested by a copy step.
+     *
+     * @param parallelism the value requested by the copy step
+     * @return the value to actually use
+     */
+    static int capParallelism(int parallelism) {
+        CopyArtifactConfiguration config = get();
+        int max = (config != null) ? config.getMaxParallelism() : DEFAULT_MAX_PARALLELISM;
+        return Math.max(1, Math.min(parallelism, max));
+    }
+
     /**
      * {@inheritDoc}
      */
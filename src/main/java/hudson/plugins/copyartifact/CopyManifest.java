@@ -0,0 +1,289 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.remoting.VirtualChannel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Records files copied into a target directory, with the builds they were copied from,
+ * their sizes, modification times and MD5 digests.
+ *
+ * The next copy into the same directory trusts digests of files not changed since,
+ * instead of computing them again,
+ * and can remove files copied by the previous copy but no longer selected,
+ * e.g. after the filter changed.
+ * Files are recorded for each copy, identified by the project to copy from,
+ * so that copies of other projects into the same directory are kept.
+ * Files modified since copied are never removed,
+ * and symbolic links are removed only if they still point to the recorded targets.
+ */
+final class CopyManifest implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(CopyManifest.class.getName());
+
+    static final String FILE_NAME = ".copyartifact-manifest";
+    private static final int VERSION = 2;
+
+    private final Map<String, Entry> entries;
+
+    CopyManifest(@NonNull List<Entry> entries) {
+        this.entries = new LinkedHashMap<>();
+        for (Entry e : entries) {
+            this.entries.put(e.path, e);
+        }
+    }
+
+    /**
+     * @param dir the target directory
+     * @return the manifest of the directory. Empty if missing or broken.
+     */
+    @NonNull
+    static CopyManifest of(@NonNull File dir) {
+        File file = new File(dir, FILE_NAME);
+        try {
+            return read(file);
+        } catch (NoSuchFileException e) {
+            return new CopyManifest(new ArrayList<>());
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Ignoring the broken manifest " + file, e);
+            return new CopyManifest(new ArrayList<>());
+        }
+    }
+
+    @NonNull
+    static CopyManifest read(@NonNull File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            int version = in.readInt();
+            if (version != VERSION && version != 1) {
+                throw new IOException("Unsupported version " + version);
+            }
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                String copy = in.readUTF();
+                String source = in.readUTF();
+                String path = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                String digest = in.readBoolean() ? in.readUTF() : null;
+                // symbolic links are recorded since version 2.
+                String link = version >= 2 && in.readBoolean() ? in.readUTF() : null;
+                entries.add(new Entry(copy, source, path, size, lastModified, digest, link));
+            }
+            return new CopyManifest(entries);
+        }
+    }
+
+    void write(@NonNull File file) throws IOException {
+        File tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp").toFile();
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Entry e : entries.values()) {
+                    out.writeUTF(e.copy);
+                    out.writeUTF(e.source);
+                    out.writeUTF(e.path);
+                    out.writeLong(e.size);
+                    out.writeLong(e.lastModified);
+                    out.writeBoolean(e.digest != null);
+                    if (e.digest != null) {
+                        out.writeUTF(e.digest);
+                    }
+                    out.writeBoolean(e.link != null);
+                    if (e.link != null) {
+                        out.writeUTF(e.link);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * @param path the path relative to the target directory
+     * @param size the size of the file in the target directory
+     * @param lastModified the modification time of the file in the target directory
+     * @return the recorded MD5 digest if the file has not changed since copied, or {@code null}.
+     */
+    @CheckForNull
+    String digestOf(@NonNull String path, long size, long lastModified) {
+        Entry e = entries.get(path);
+        if (e == null || e.link != null || !e.isUnchanged(size, lastModified)) {
+            return null;
+        }
+        return e.digest;
+    }
+
+    @CheckForNull
+    Entry get(@NonNull String path) {
+        return entries.get(path);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        /**
+         * Identifies the copy, by the project to copy from.
+         */
+        final String copy;
+        /**
+         * The externalizable id of the build copied from.
+         */
+        final String source;
+        final String path;
+        final long size;
+        final long lastModified;
+        @CheckForNull
+        final String digest;
+        /**
+         * The target of the symbolic link, or {@code null} if copied as a file.
+         */
+        @CheckForNull
+        final String link;
+
+        Entry(@NonNull String copy, @NonNull String source, @NonNull String path, long size, long lastModified,
+                @CheckForNull String digest, @CheckForNull String link) {
+            this.copy = copy;
+            this.source = source;
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+            this.link = link;
+        }
+
+        /**
+         * @param size the size of the file in the target directory
+         * @param lastModified the modification time of the file in the target directory
+         * @return {@code true} if the file has not changed since copied
+         */
+        boolean isUnchanged(long size, long lastModified) {
+            return this.size == size && Math.abs(this.lastModified - lastModified) < SyncCheck.MTIME_TOLERANCE;
+        }
+
+        /**
+         * @param f the file in the target directory
+         * @param attrs attributes of the file, not following symbolic links
+         * @return {@code true} if the file was not modified nor replaced since copied
+         */
+        boolean isUnchanged(@NonNull Path f, @NonNull BasicFileAttributes attrs) throws IOException {
+            if (link != null) {
+                return attrs.isSymbolicLink() && link.equals(Files.readSymbolicLink(f).toString());
+            }
+            return attrs.isRegularFile() && isUnchanged(attrs.size(), attrs.lastModifiedTime().toMillis());
+        }
+    }
+
+    /**
+     * Replaces files recorded for a copy in the manifest of the directory,
+     * optionally removing files recorded by the previous copy but not selected this time.
+     * Files whose sizes or modification times no longer match the records were modified since copied,
+     * and are kept but no longer recorded.
+     * Returns the number of removed files.
+     */
+    static final class Update extends MasterToSlaveFileCallable<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final String copy;
+        private final List<Entry> copied;
+        private final boolean removeStaleFiles;
+
+        /**
+         * @param copy identifies the copy
+         * @param copied files copied this time
+         * @param removeStaleFiles whether to remove files recorded by the previous copy but not copied this time
+         */
+        Update(@NonNull String copy, @NonNull List<Entry> copied, boolean removeStaleFiles) {
+            this.copy = copy;
+            this.copied = copied;
+            this.removeStaleFiles = removeStaleFiles;
+        }
+
+        @Override
+        public Integer invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            CopyManifest previous = of(dir);
+            Set<String> paths = new HashSet<>();
+            for (Entry e : copied) {
+                paths.add(e.path);
+            }
+            List<Entry> entries = new ArrayList<>();
+            int removed = 0;
+            for (Entry e : previous.entries.values()) {
+                if (paths.contains(e.path)) {
+                    continue;
+                }
+                if (e.copy.equals(copy) && removeStaleFiles) {
+                    Path f = FileMetadata.resolve(dir, e.path).toPath();
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(f, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (NoSuchFileException x) {
+                        continue;
+                    }
+                    // files modified since copied are kept, and no longer recorded.
+                    if (e.isUnchanged(f, attrs)) {
+                        Files.delete(f);
+                        removed++;
+                    }
+                } else {
+                    // copied by another copy, or kept to remove later.
+                    entries.add(e);
+                }
+            }
+            entries.addAll(copied);
+            new CopyManifest(entries).write(new File(dir, FILE_NAME));
+            return removed;
+        }
+
+    }
+}
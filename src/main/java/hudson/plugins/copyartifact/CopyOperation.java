@@ -0,0 +1,938 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jenkins.model.Jenkins;
+import jenkins.security.ImpersonatingExecutorService;
+import jenkins.util.SystemProperties;
+import jenkins.util.VirtualFile;
+import org.apache.commons.io.IOUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Copies the artifacts selected from a source directory into a target directory.
+ *
+ * Files are copied one by one, through partial files renamed once completed.
+ * When more than one worker is allowed, files are copied concurrently
+ * so that the latency of remoting calls for each file overlaps,
+ * but the results are still reported in the order of the listing.
+ * The modification times, the modes and symbolic links are restored
+ * in chunks after the contents are transferred.
+ * In sync mode, files already identical in the target directory are not transferred.
+ * When the node has a cache of artifacts, files already in the cache are not transferred either.
+ * Files the node of the target directory can read directly are copied there without streaming.
+ * Files sent to a remote node can be compressed.
+ * Files with the same contents as other files according to the source build are transferred once
+ * and copied on the node.
+ * Selected archives are extracted while transferred instead of being copied.
+ *
+ * @see MetadataBatch
+ * @see PartialFiles
+ * @see LocalCopy
+ * @see SyncCheck
+ * @see AgentCache
+ */
+final class CopyOperation {
+    /**
+     * Whether nodes copy artifacts they can read by themselves, instead of receiving them from the controller.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* non-final for script console */ boolean LOCAL_COPY = SystemProperties.getBoolean(CopyOperation.class.getName() + ".localCopy", true);
+
+    private final VirtualFile srcDir;
+    private final FilePath targetDir;
+    private final TaskListener listener;
+    private String includes = "**";
+    @CheckForNull
+    private String excludes;
+    private boolean flatten;
+    private boolean fingerprint;
+    @CheckForNull
+    private String fingerprintIncludes;
+    private Map<String, String> recorded = Collections.emptyMap();
+    private int parallelism = 1;
+    private boolean singleStream;
+    private int downloadConnections = 1;
+    private int connectionsPerHost = CopyArtifactConfiguration.DEFAULT_CONNECTIONS_PER_HOST;
+    private final String id = UUID.randomUUID().toString();
+    private final AtomicBoolean downloaded = new AtomicBoolean();
+    private final AtomicBoolean localSource = new AtomicBoolean(LOCAL_COPY);
+    private boolean sync;
+    private boolean syncVerifyDigest;
+    @CheckForNull
+    private AgentCache cache;
+    @CheckForNull
+    private WireCompression compression;
+    @CheckForNull
+    private String extractArchives;
+    private ArchiveExtraction extraction = new ArchiveExtraction(null, null);
+    @CheckForNull
+    private String packInto;
+    @CheckForNull
+    private String manifestCopy;
+    @CheckForNull
+    private String manifestSource;
+    private boolean removeStaleFiles;
+    private CopyThrottle.Session throttle = CopyThrottle.UNLIMITED;
+    private final MetadataBatch metadata;
+    private final CopyProgress progress;
+
+    /**
+     * @param srcDir the directory to copy from
+     * @param targetDir the directory to copy into. Created if not exists.
+     * @param listener the listener of the copying build
+     */
+    CopyOperation(@NonNull VirtualFile srcDir, @NonNull FilePath targetDir, @NonNull TaskListener listener) {
+        this.srcDir = srcDir;
+        this.targetDir = targetDir;
+        this.listener = listener;
+        this.metadata = new MetadataBatch(targetDir, listener);
+        this.progress = new CopyProgress(listener);
+    }
+
+    /**
+     * @param includes Ant GLOB pattern of files to copy
+     * @param excludes Ant GLOB pattern of files not to copy. Can be null.
+     */
+    void setFilter(@NonNull String includes, @CheckForNull String excludes) {
+        this.includes = includes.replace('\\', '/');
+        this.excludes = excludes != null ? excludes.replace('\\', '/') : null;
+    }
+
+    void setFlatten(boolean flatten) {
+        this.flatten = flatten;
+    }
+
+    void setFingerprint(boolean fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @param fingerprintIncludes comma separated Ant GLOB patterns of entries to fingerprint.
+     *     {@code null} to fingerprint all entries.
+     */
+    void setFingerprintIncludes(@CheckForNull String fingerprintIncludes) {
+        this.fingerprintIncludes = Util.fixEmptyAndTrim(fingerprintIncludes);
+    }
+
+    private boolean isFingerprinted(String entry) {
+        return fingerprint && (fingerprintIncludes == null || ArchiveExtraction.matches(fingerprintIncludes, entry));
+    }
+
+    /**
+     * @param recorded entries mapped to MD5 digests already computed from the archived artifacts of the source build.
+     *     Those digests are used instead of computing them again.
+     */
+    void setRecordedDigests(@NonNull Map<String, String> recorded) {
+        this.recorded = recorded;
+    }
+
+    /**
+     * @param parallelism the number of files copied at the same time
+     */
+    void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param singleStream whether to transfer files as a single archive stream.
+     *     Files provided from external URLs are still transferred one by one.
+     * @see TarStreamTransfer
+     */
+    void setSingleStream(boolean singleStream) {
+        this.singleStream = singleStream;
+    }
+
+    /**
+     * @param downloadConnections the number of connections to download a single file from an external URL
+     * @see DownloadURL
+     */
+    void setDownloadConnections(int downloadConnections) {
+        this.downloadConnections = Math.max(1, downloadConnections);
+    }
+
+    /**
+     * @param connectionsPerHost the maximum number of connections to each host to download files from external URLs
+     * @see HttpConnectionPool
+     */
+    void setConnectionsPerHost(int connectionsPerHost) {
+        this.connectionsPerHost = Math.max(1, connectionsPerHost);
+    }
+
+    /**
+     * @param sync whether to skip files with the same size and modification time in the target directory
+     * @param verifyDigest whether to also require the same MD5 digest to skip files
+     */
+    void setSync(boolean sync, boolean verifyDigest) {
+        this.sync = sync;
+        this.syncVerifyDigest = verifyDigest;
+    }
+
+    /**
+     * @param cache the cache on the node of the target directory. {@code null} not to use a cache.
+     * @see AgentCache#forTarget(FilePath)
+     */
+    void setCache(@CheckForNull AgentCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @param compression whether to compress files sent to a remote node
+     * @see WireCompression
+     */
+    void setCompression(boolean compression) {
+        this.compression = compression ? new WireCompression() : null;
+    }
+
+    /**
+     * @param archives comma separated Ant GLOB patterns of archives to extract instead of copying them.
+     *     {@code null} not to extract archives.
+     * @param extraction how to extract archives
+     * @see ArchiveExtraction
+     */
+    void setExtract(@CheckForNull String archives, @NonNull ArchiveExtraction extraction) {
+        this.extractArchives = Util.fixEmptyAndTrim(archives);
+        this.extraction = extraction;
+    }
+
+    /**
+     * @param packInto the path of a zip or tar file in the target directory to write files into
+     *     instead of creating them one by one. {@code null} to create files.
+     * @see ArchivePacking
+     */
+    void setPackInto(@CheckForNull String packInto) {
+        this.packInto = Util.fixEmptyAndTrim(packInto);
+    }
+
+    /**
+     * @param copy identifies the copy in the manifest of the target directory,
+     *     by the project to copy from
+     * @param source the externalizable id of the build to copy from
+     * @param removeStaleFiles whether to remove files copied by the previous copy but not selected this time
+     * @see CopyManifest
+     */
+    void setManifest(@NonNull String copy, @NonNull String source, boolean removeStaleFiles) {
+        this.manifestCopy = copy;
+        this.manifestSource = source;
+        this.removeStaleFiles = removeStaleFiles;
+    }
+
+    /**
+     * @param throttle the limits of reading artifacts
+     * @see CopyThrottle#start(String)
+     */
+    void setThrottle(@NonNull CopyThrottle.Session throttle) {
+        this.throttle = throttle;
+    }
+
+    /**
+     * @return the progress of the copy, to report the time spent recording fingerprints in its summary
+     */
+    @NonNull
+    CopyProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Performs the copy.
+     *
+     * @return the copied entries in the order of the listing, mapped to their MD5 digests,
+     *     or to {@code null} if the entry was not fingerprinted.
+     *     Entries skipped as unchanged in sync mode or taken from the cache are included.
+     * @throws IOException if an error occurs while performing the operation.
+     *     When several files fail, the error of the first one in the listing is reported.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @NonNull
+    Map<String, String> execute() throws IOException, InterruptedException {
+        try {
+            return copy();
+        } finally {
+            closeConnections();
+            if (compression != null) {
+                compression.report(listener);
+            }
+            throttle.report(listener);
+        }
+    }
+
+    private Map<String, String> copy() throws IOException, InterruptedException {
+        targetDir.mkdirs();  // Create target if needed
+        Collection<String> list = srcDir.list(includes, excludes, false);
+        if (packInto != null) {
+            return pack(list);
+        }
+        Set<String> archives = findArchives(list);
+        List<String> files = pending(list, archives);
+        // entries already in the target directory, mapped to their digests
+        Map<String, String> done = new HashMap<>();
+        if (sync) {
+            done.putAll(findUnchanged(files));
+        }
+        Map<String, String> digests = new HashMap<>();
+        if (cache != null) {
+            done.putAll(fromCache(pending(files, done.keySet()), digests));
+        }
+        List<String> pending = pending(files, done.keySet());
+        Map<String, String> duplicates = findDuplicates(pending);
+        List<String> transferred = pending(pending, duplicates.keySet());
+        progress.start(transferred.size() + archives.size());
+        Map<String, String> copied;
+        if (singleStream) {
+            copied = copyAsStream(transferred);
+        } else {
+            copied = copyAll(transferred);
+            metadata.flush();
+        }
+        copied.putAll(copyDuplicates(duplicates));
+        copied.putAll(extractAll(archives));
+        progress.transferred();
+        if (cache != null) {
+            toCache(transferred, digests);
+        }
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (String entry : list) {
+            String digest = done.containsKey(entry) ? done.get(entry) : copied.get(entry);
+            fingerprints.put(entry, isFingerprinted(entry) ? digest : null);
+        }
+        if (manifestCopy != null) {
+            updateManifest(files, done, copied);
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Records copied files in the manifest of the target directory.
+     * Extracted archives are not recorded as they are not copied as files.
+     */
+    private void updateManifest(List<String> files, Map<String, String> done, Map<String, String> copied)
+            throws IOException, InterruptedException {
+        List<CopyManifest.Entry> entries = new ArrayList<>();
+        for (String entry : files) {
+            VirtualFile s = srcDir.child(entry);
+            String digest = done.containsKey(entry) ? done.get(entry) : copied.get(entry);
+            if (digest == null) {
+                digest = recorded.get(entry);
+            }
+            String link = s.readLink();
+            entries.add(new CopyManifest.Entry(manifestCopy, manifestSource, targetPath(entry), s.length(), s.lastModified(), digest, link));
+        }
+        int removed;
+        try {
+            removed = targetDir.act(new CopyManifest.Update(manifestCopy, entries, removeStaleFiles));
+        } catch (IOException e) {
+            Functions.printStackTrace(e, listener.error("Failed to update the manifest of the target directory"));
+            return;
+        }
+        if (removed > 0) {
+            listener.getLogger().println(Messages.CopyArtifact_RemovedStaleFiles(removed));
+        }
+    }
+
+    /**
+     * @return archives to extract instead of copying them
+     */
+    private Set<String> findArchives(Collection<String> list) throws IOException {
+        Set<String> archives = new LinkedHashSet<>();
+        if (extractArchives == null) {
+            return archives;
+        }
+        for (String entry : list) {
+            if (ArchiveExtraction.formatOf(entry) != null
+                    && ArchiveExtraction.matches(extractArchives, entry)
+                    && srcDir.child(entry).readLink() == null) {
+                archives.add(entry);
+            }
+        }
+        return archives;
+    }
+
+    /**
+     * Extracts archives into the directories they would be copied into.
+     *
+     * @return archives mapped to their MD5 digests
+     */
+    private Map<String, String> extractAll(Set<String> archives) throws IOException, InterruptedException {
+        Map<String, String> digests = new HashMap<>();
+        for (String entry : archives) {
+            String path = targetPath(entry);
+            int slash = path.lastIndexOf('/');
+            FilePath dir = (slash >= 0) ? new FilePath(targetDir, path.substring(0, slash)) : targetDir;
+            VirtualFile s = srcDir.child(entry);
+            String digest = isFingerprinted(entry) ? recorded.get(entry) : null;
+            ArchiveExtraction.Result result;
+            try (CopyThrottle.OpenFile file = throttle.open(); InputStream is = open(s, throttle, false)) {
+                result = extraction.extract(s, is, dir, isFingerprinted(entry) && digest == null, listener);
+            } catch (IOException e) {
+                throw new IOException("Failed to extract " + s + " into " + dir, e);
+            }
+            listener.getLogger().println(Messages.CopyArtifact_Extracted(result.entries, entry));
+            progress.copied(s.length());
+            digests.put(entry, (digest != null) ? digest : result.digest);
+        }
+        return digests;
+    }
+
+    /**
+     * Finds entries with the same contents as other entries to transfer, by MD5 digests computed for the source build,
+     * so that each content is transferred once.
+     *
+     * Entries flattened into the same path as other entries are transferred as usual,
+     * as the file they would be copied from on the node may be overwritten by another entry.
+     *
+     * @return duplicate entries mapped to the first entries with the same contents
+     */
+    private Map<String, String> findDuplicates(List<String> pending) throws IOException {
+        Map<String, Integer> targets = new HashMap<>();
+        for (String entry : pending) {
+            targets.merge(targetPath(entry), 1, Integer::sum);
+        }
+        Map<String, String> firsts = new HashMap<>();
+        Map<String, String> duplicates = new LinkedHashMap<>();
+        for (String entry : pending) {
+            String digest = recorded.get(entry);
+            if (digest == null || targets.get(targetPath(entry)) > 1) {
+                continue;
+            }
+            String first = firsts.putIfAbsent(digest, entry);
+            if (first == null) {
+                continue;
+            }
+            VirtualFile s = srcDir.child(entry);
+            VirtualFile f = srcDir.child(first);
+            if (s.readLink() == null && f.readLink() == null && s.length() == f.length()) {
+                duplicates.put(entry, first);
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * Copies duplicate entries from the already transferred entries with the same contents on the node.
+     *
+     * @param duplicates duplicate entries mapped to the transferred entries with the same contents
+     * @return duplicate entries mapped to their MD5 digests
+     */
+    private Map<String, String> copyDuplicates(Map<String, String> duplicates) throws IOException, InterruptedException {
+        Map<String, String> digests = new HashMap<>();
+        if (duplicates.isEmpty()) {
+            return digests;
+        }
+        long bytes = 0;
+        for (Map.Entry<String, String> duplicate : duplicates.entrySet()) {
+            VirtualFile s = srcDir.child(duplicate.getKey());
+            metadata.add(FileMetadata.copyOf(targetPath(duplicate.getKey()), targetPath(duplicate.getValue()), s.lastModified(), s.mode()));
+            digests.put(duplicate.getKey(), recorded.get(duplicate.getKey()));
+            bytes += s.length();
+        }
+        metadata.flush();
+        listener.getLogger().println(Messages.CopyArtifact_Duplicates(duplicates.size(), Functions.humanReadableByteSize(bytes)));
+        return digests;
+    }
+
+    /**
+     * @return how to compress bytes sent to the node of the target directory. {@code null} not to compress them.
+     */
+    @CheckForNull
+    private WireCompression wireCompression() {
+        return targetDir.isRemote() ? compression : null;
+    }
+
+    private HttpConnectionPool.Ref connections() {
+        return new HttpConnectionPool.Ref(id, connectionsPerHost);
+    }
+
+    private void closeConnections() throws InterruptedException {
+        if (!downloaded.get()) {
+            return;
+        }
+        try {
+            HttpConnectionPool.Stats stats = connections().close(targetDir.getChannel());
+            if (stats != null) {
+                listener.getLogger().println(Messages.CopyArtifact_ConnectionStats(
+                        stats.requests, stats.connections, stats.connectMillis
+                ));
+            }
+        } catch (IOException e) {
+            Functions.printStackTrace(e, listener.error("Failed to close connections to download artifacts"));
+        }
+    }
+
+    private static List<String> pending(Collection<String> list, Set<String> done) {
+        List<String> pending = new ArrayList<>(list.size());
+        for (String entry : list) {
+            if (!done.contains(entry)) {
+                pending.add(entry);
+            }
+        }
+        return pending;
+    }
+
+    private Map<String, String> findUnchanged(Collection<String> list) throws IOException, InterruptedException {
+        Map<String, String> paths = new LinkedHashMap<>();
+        for (String entry : list) {
+            paths.put(entry, targetPath(entry));
+        }
+        SyncCheck check = new SyncCheck(srcDir, targetDir, syncVerifyDigest, this::isFingerprinted, recorded, throttle);
+        Map<String, String> unchanged = check.findUnchanged(paths);
+        if (check.getSkippedFiles() > 0) {
+            listener.getLogger().println(Messages.CopyArtifact_SyncSkipped(
+                    check.getSkippedFiles(),
+                    Functions.humanReadableByteSize(check.getSkippedBytes())
+            ));
+        }
+        return unchanged;
+    }
+
+    /**
+     * Copies files from the cache of the node.
+     * Files are looked up only with digests computed for the source build,
+     * as reading files to compute digests could cost more than copying them.
+     */
+    private Map<String, String> fromCache(List<String> list, Map<String, String> digests) throws IOException, InterruptedException {
+        Map<String, String> known = (cache.getAlgorithm() instanceof DigestAlgorithm.MD5)
+                ? recorded
+                : ArtifactIndex.digestsOf(srcDir, cache.getAlgorithm());
+        List<AgentCache.Entry> entries = new ArrayList<>();
+        Map<String, String> entryOf = new HashMap<>();
+        Map<String, Long> sizes = new HashMap<>();
+        for (String entry : list) {
+            String digest = known.get(entry);
+            if (digest == null) {
+                continue;
+            }
+            VirtualFile s = srcDir.child(entry);
+            if (s.readLink() != null) {
+                continue;
+            }
+            String path = targetPath(entry);
+            long size = s.length();
+            digests.put(entry, digest);
+            entries.add(new AgentCache.Entry(digest, size,
+                    FileMetadata.file(path, PartialFiles.partialPath(path, "cache:" + digest), s.lastModified(), s.mode())));
+            entryOf.put(path, entry);
+            sizes.put(entry, size);
+        }
+        Set<String> hits;
+        try {
+            hits = cache.materialize(targetDir, entries, listener);
+        } catch (IOException e) {
+            Functions.printStackTrace(e, listener.error("Failed to use the artifact cache of the node"));
+            return Collections.emptyMap();
+        }
+        Map<String, String> found = new HashMap<>();
+        long bytes = 0;
+        for (String path : hits) {
+            String entry = entryOf.get(path);
+            String md5 = null;
+            if (recorded.containsKey(entry)) {
+                md5 = recorded.get(entry);
+            } else if (cache.getAlgorithm() instanceof DigestAlgorithm.MD5) {
+                md5 = digests.get(entry);
+            } else if (isFingerprinted(entry)) {
+                long started = System.nanoTime();
+                md5 = digestOf(srcDir.child(entry), throttle);
+                progress.hashed(System.nanoTime() - started);
+            }
+            found.put(entry, md5);
+            bytes += sizes.get(entry);
+        }
+        if (!found.isEmpty()) {
+            listener.getLogger().println(Messages.CopyArtifact_CacheHits(found.size(), Functions.humanReadableByteSize(bytes)));
+        }
+        return found;
+    }
+
+    private void toCache(List<String> list, Map<String, String> digests) throws InterruptedException {
+        Map<String, String> entries = new HashMap<>();
+        for (String entry : list) {
+            String digest = digests.get(entry);
+            if (digest != null) {
+                entries.put(targetPath(entry), digest);
+            }
+        }
+        try {
+            cache.store(targetDir, entries);
+        } catch (IOException e) {
+            Functions.printStackTrace(e, listener.error("Failed to update the artifact cache of the node"));
+        }
+    }
+
+    /**
+     * @return entries to compute MD5 digests of while they are transferred
+     */
+    private Set<String> digested(Collection<String> list) {
+        Set<String> digested = new HashSet<>();
+        for (String entry : list) {
+            if (isFingerprinted(entry) && !recorded.containsKey(entry)) {
+                digested.add(entry);
+            }
+        }
+        return digested;
+    }
+
+    /**
+     * Writes all files into a single archive.
+     * Sync mode, the cache, duplicates and archive extraction do not apply as no file is created.
+     */
+    private Map<String, String> pack(Collection<String> list) throws IOException, InterruptedException {
+        Map<String, String> packed = new LinkedHashMap<>();
+        for (String entry : list) {
+            packed.put(entry, targetPath(entry));
+        }
+        Set<String> digested = digested(list);
+        progress.start(list.size());
+        Map<String, String> digests = new ArchivePacking(srcDir, targetDir, packInto, throttle, progress).pack(packed, digested, metadata);
+        progress.transferred();
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (String entry : list) {
+            fingerprints.put(entry, isFingerprinted(entry) && recorded.containsKey(entry) ? recorded.get(entry) : digests.get(entry));
+        }
+        return fingerprints;
+    }
+
+    private Map<String, String> copyAsStream(Collection<String> list) throws IOException, InterruptedException {
+        Map<String, String> streamed = new LinkedHashMap<>();
+        List<String> others = new ArrayList<>();
+        for (String entry : list) {
+            if (srcDir.child(entry).toExternalURL() == null) {
+                streamed.put(entry, targetPath(entry));
+            } else {
+                others.add(entry);
+            }
+        }
+        Map<String, String> digests = new HashMap<>();
+        if (!streamed.isEmpty()) {
+            Set<String> digested = digested(streamed.keySet());
+            digests.putAll(new TarStreamTransfer(srcDir, targetDir, listener, wireCompression(), throttle, progress).transfer(streamed, digested));
+        }
+        digests.putAll(copyAll(others));
+        metadata.flush();
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (String entry : list) {
+            fingerprints.put(entry, isFingerprinted(entry) && recorded.containsKey(entry) ? recorded.get(entry) : digests.get(entry));
+        }
+        return fingerprints;
+    }
+
+    private Map<String, String> copyAll(Collection<String> list) throws IOException, InterruptedException {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        Map<String, Long> partials = findPartials(list);
+        if (parallelism <= 1 || list.size() <= 1) {
+            for (String entry : list) {
+                fingerprints.put(entry, copyOne(entry, partials));
+            }
+            return fingerprints;
+        }
+
+        // entries flattened into the same path are copied one after another
+        // so that the last one wins as in sequential copies.
+        Map<String, List<String>> byTarget = new LinkedHashMap<>();
+        for (String entry : list) {
+            byTarget.computeIfAbsent(targetPath(entry), k -> new ArrayList<>()).add(entry);
+        }
+        ExecutorService executor = new ImpersonatingExecutorService(
+                Executors.newFixedThreadPool(
+                        Math.min(parallelism, byTarget.size()),
+                        new NamingThreadFactory(new DaemonThreadFactory(), "CopyArtifact worker")
+                ),
+                Jenkins.getAuthentication2()
+        );
+        try {
+            List<Future<Map<String, String>>> results = new ArrayList<>(byTarget.size());
+            for (List<String> entries : byTarget.values()) {
+                results.add(executor.submit(() -> {
+                    Map<String, String> digests = new HashMap<>();
+                    for (String entry : entries) {
+                        digests.put(entry, copyOne(entry, partials));
+                    }
+                    return digests;
+                }));
+            }
+            Map<String, String> digests = new HashMap<>();
+            for (Future<Map<String, String>> result : results) {
+                digests.putAll(waitFor(result));
+            }
+            for (String entry : list) {
+                fingerprints.put(entry, digests.get(entry));
+            }
+            return fingerprints;
+        } finally {
+            // cancels remaining copies when failed or interrupted.
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return paths of partial files left by interrupted copies mapped to their sizes
+     * @see PartialFiles
+     */
+    private Map<String, Long> findPartials(Collection<String> list) throws IOException, InterruptedException {
+        Map<String, String> partialPaths = new HashMap<>();
+        for (String entry : list) {
+            VirtualFile s = srcDir.child(entry);
+            if (s.readLink() == null) {
+                String path = targetPath(entry);
+                partialPaths.put(path, partialPath(entry, s));
+            }
+        }
+        return PartialFiles.find(targetDir, partialPaths);
+    }
+
+    private String partialPath(String entry, VirtualFile s) throws IOException {
+        return PartialFiles.partialPath(targetPath(entry), entry + ":" + s.length() + ":" + s.lastModified());
+    }
+
+    private static <T> T waitFor(Future<T> result) throws IOException, InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private String targetPath(String entry) {
+        return flatten ? entry.replaceFirst(".+/", "") : entry;
+    }
+
+    private String copyOne(String entry, Map<String, Long> partials) throws IOException, InterruptedException {
+        String path = targetPath(entry);
+        String digest = isFingerprinted(entry) ? recorded.get(entry) : null;
+        VirtualFile s = srcDir.child(entry);
+        String computed = copyOne(s, new FilePath(targetDir, path), path, partialPath(entry, s), partials,
+                isFingerprinted(entry) && digest == null, recorded.get(entry));
+        return (digest != null) ? digest : computed;
+    }
+
+    static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException x) {
+            throw new AssertionError(x);
+        }
+    }
+
+    /**
+     * @param s the file to read
+     * @param throttle the limits of reading artifacts
+     * @return the MD5 digest of the file
+     * @throws IOException if failed to read the file
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    static String digestOf(VirtualFile s, CopyThrottle.Session throttle) throws IOException, InterruptedException {
+        MessageDigest md5 = md5();
+        try (CopyThrottle.OpenFile file = throttle.open(); InputStream is = open(s, throttle, false)) {
+            IOUtils.copy(is, new DigestOutputStream(OutputStream.nullOutputStream(), md5));
+        }
+        return Util.toHexString(md5.digest());
+    }
+
+    private String copyOne(VirtualFile s, FilePath d, String path, String partialPath, Map<String, Long> partials,
+            boolean computeDigest, @CheckForNull String recordedDigest) throws IOException, InterruptedException {
+        String link = s.readLink();
+        if (link != null) {
+            metadata.add(FileMetadata.symlink(path, link));
+            progress.copied(0);
+            return null;
+        }
+        try {
+            FilePath partial = new FilePath(targetDir, partialPath);
+            long size = s.length();
+            long offset = partials.getOrDefault(partialPath, 0L);
+            if (offset > 0 && offset == size) {
+                // completed by the interrupted attempt, but not renamed yet.
+                String written = (computeDigest || recordedDigest != null) ? partial.digest() : null;
+                if (recordedDigest == null || recordedDigest.equals(written)) {
+                    listener.getLogger().println(Messages.CopyArtifact_ResumedCompleted(path));
+                    metadata.add(FileMetadata.file(path, partialPath, s.lastModified(), s.mode()));
+                    progress.copied(size);
+                    return written;
+                }
+                offset = 0;
+            } else if (offset > size) {
+                // of an unknown size.
+                offset = 0;
+            }
+            if (offset > 0) {
+                listener.getLogger().println(Messages.CopyArtifact_Resuming(path, offset));
+            }
+            URL u = s.toExternalURL();
+            byte[] digest;
+            if (u != null) {
+                downloaded.set(true);
+                digest = partial.act(new DownloadURL(
+                        u, listener, computeDigest, downloadConnections, DownloadURL.DEFAULT_RANGE_SIZE, connections(), offset
+                ));
+            } else {
+                LocalCopy.Result local = copyLocally(s, partial, size, offset, computeDigest);
+                if (local != null) {
+                    digest = local.digest;
+                } else {
+                    digest = copyStream(s, partial, size, offset, computeDigest);
+                }
+            }
+            // renamed and restored later together with other files.
+            metadata.add(FileMetadata.file(path, partialPath, s.lastModified(), s.mode()));
+            progress.copied(size);
+            return digest != null ? Util.toHexString(digest) : null;
+        } catch (IOException e) {
+            throw new IOException("Failed to copy " + s + " to " + d, e);
+        }
+    }
+
+    /**
+     * Copies a file directly on the node of the target directory, when that node can read it.
+     *
+     * @return the result, or {@code null} if the file should be streamed instead
+     * @see LocalCopy
+     */
+    @CheckForNull
+    private LocalCopy.Result copyLocally(VirtualFile s, FilePath partial, long size, long offset, boolean computeDigest)
+            throws IOException, InterruptedException {
+        if (!localSource.get()) {
+            return null;
+        }
+        String source = LocalCopy.pathOf(s);
+        LocalCopy.Result result = null;
+        if (source != null) {
+            try (CopyThrottle.OpenFile file = throttle.open()) {
+                result = partial.act(new LocalCopy(source, size, s.lastModified(), offset, computeDigest));
+            }
+            if (result != null) {
+                // accounted afterwards as the node read the file by itself, making following reads wait.
+                throttle.acquire(size - offset);
+            }
+        }
+        if (result == null && (source == null || targetDir.isRemote())) {
+            // not worth a remoting call for each of the other files.
+            localSource.set(false);
+        }
+        return result;
+    }
+
+    /**
+     * @param s the file to read
+     * @param throttle the limits of reading artifacts
+     * @param sampleable whether to sample the stream for {@link WireCompression#isWorthCompressing(BufferedInputStream, String)}
+     * @return the stream to read the file
+     * @throws IOException if an error occurs while opening the file.
+     */
+    static InputStream open(VirtualFile s, CopyThrottle.Session throttle, boolean sampleable) throws IOException {
+        InputStream is = throttle.throttle(s.open());
+        return sampleable ? WireCompression.sampleable(is) : is;
+    }
+
+    @CheckForNull
+    private byte[] copyStream(VirtualFile s, FilePath partial, long size, long offset, boolean computeDigest)
+            throws IOException, InterruptedException {
+        MessageDigest md5 = computeDigest ? md5() : null;
+        WireCompression compression = wireCompression();
+        try (CopyThrottle.OpenFile file = throttle.open();
+             InputStream is = open(s, throttle, compression != null)) {
+            if (md5 != null) {
+                // the part copied by the interrupted attempt.
+                IOUtils.copyLarge(is, new DigestOutputStream(OutputStream.nullOutputStream(), md5), 0, offset);
+            } else {
+                IOUtils.skipFully(is, offset);
+            }
+            boolean compress = compression != null && WireCompression.isWorthCompressing((BufferedInputStream) is, s.getName());
+            OutputStream opened = PartialFiles.open(partial, offset, compress);
+            OutputStream os = compress ? compression.compress(opened) : opened;
+            byte[] digest = null;
+            if (md5 != null) {
+                try (HashingOutputStream hos = new HashingOutputStream(os, md5, size - offset)) {
+                    IOUtils.copy(is, hos);
+                    long waited = System.nanoTime();
+                    digest = hos.digest();
+                    progress.hashed(System.nanoTime() - waited);
+                }
+            } else {
+                try (os) {
+                    IOUtils.copy(is, os);
+                }
+            }
+            syncIO();
+            return digest;
+        }
+    }
+
+    /**
+     * Waits until the node has written what this thread sent through remote streams.
+     * Remoting orders writes only before later calls from the same thread,
+     * while metadata renaming the partial file may be restored by another worker.
+     */
+    private void syncIO() throws IOException, InterruptedException {
+        VirtualChannel channel = targetDir.getChannel();
+        if (parallelism > 1 && channel instanceof Channel) {
+            ((Channel) channel).syncIO();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Functions;
+import hudson.Util;
+import hudson.model.TaskListener;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts files and bytes copied, reporting the progress of long copies
+ * at most once per {@link #INTERVAL}, and the time spent in each phase at the end.
+ */
+final class CopyProgress {
+    static final long INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final TaskListener listener;
+    private final long interval;
+    private final long created = System.nanoTime();
+    private volatile long started;
+    private volatile int total;
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong reported = new AtomicLong();
+    private final AtomicLong hashingNanos = new AtomicLong();
+    private volatile long listingNanos;
+    private volatile long transferNanos;
+    private volatile long recordingNanos;
+
+    /**
+     * @param listener the listener to report to
+     */
+    CopyProgress(@NonNull TaskListener listener) {
+        this(listener, INTERVAL);
+    }
+
+    /**
+     * @param listener the listener to report to
+     * @param interval the minimum interval between reports of the progress in nanoseconds
+     */
+    CopyProgress(@NonNull TaskListener listener, long interval) {
+        this.listener = listener;
+        this.interval = interval;
+    }
+
+    /**
+     * Starts the transfer once files to transfer are known.
+     *
+     * @param total the number of files to transfer
+     */
+    void start(int total) {
+        this.total = total;
+        this.started = System.nanoTime();
+        this.listingNanos = started - created;
+        this.reported.set(started);
+    }
+
+    /**
+     * Counts a transferred file, and reports the progress if not reported recently.
+     *
+     * @param size the number of bytes transferred
+     */
+    void copied(long size) {
+        int done = files.incrementAndGet();
+        long transferred = bytes.addAndGet(Math.max(0, size));
+        long now = System.nanoTime();
+        long last = reported.get();
+        if (now - last < interval || done >= total || !reported.compareAndSet(last, now)) {
+            return;
+        }
+        long elapsed = now - started;
+        long remaining = elapsed * (total - done) / done;
+        listener.getLogger().println(Messages.CopyArtifact_Progress(
+                done,
+                total,
+                Functions.humanReadableByteSize(transferred),
+                Functions.humanReadableByteSize(transferred * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed)),
+                Util.getTimeSpanString(TimeUnit.NANOSECONDS.toMillis(remaining))
+        ));
+    }
+
+    /**
+     * Ends the transfer.
+     */
+    void transferred() {
+        transferNanos = System.nanoTime() - started;
+    }
+
+    /**
+     * Counts time spent computing digests out of the transfer, or waiting for them.
+     *
+     * @param nanos the time spent
+     */
+    void hashed(long nanos) {
+        hashingNanos.addAndGet(nanos);
+    }
+
+    /**
+     * @param nanos the time spent recording fingerprints
+     */
+    void recorded(long nanos) {
+        recordingNanos = nanos;
+    }
+
+    /**
+     * Reports the time spent in each phase.
+     */
+    void summarize() {
+        listener.getLogger().println(Messages.CopyArtifact_Summary(
+                Util.getTimeSpanString(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - created)),
+                Util.getTimeSpanString(TimeUnit.NANOSECONDS.toMillis(listingNanos)),
+                Util.getTimeSpanString(TimeUnit.NANOSECONDS.toMillis(transferNanos)),
+                Util.getTimeSpanString(TimeUnit.NANOSECONDS.toMillis(hashingNanos.get())),
+                Util.getTimeSpanString(TimeUnit.NANOSECONDS.toMillis(recordingNanos))
+        ));
+    }
+
+    /**
+     * @return the number of files transferred
+     */
+    int getFiles() {
+        return files.get();
+    }
+
+    /**
+     * @return the number of bytes transferred
+     */
+    long getBytes() {
+        return bytes.get();
+    }
+}
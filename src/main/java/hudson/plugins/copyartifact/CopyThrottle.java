@@ -0,0 +1,307 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the bandwidth and the number of open files used by all copies
+ * to read artifacts on the controller, configured in {@link CopyArtifactConfiguration}.
+ *
+ * The bandwidth is limited by token buckets refilled at the configured rate,
+ * allowing bursts of one second.
+ * Reads may take more tokens than available, making the following reads wait,
+ * so that a large file copied by the node itself can be accounted at once.
+ */
+final class CopyThrottle {
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * Does not limit anything.
+     */
+    static final Session UNLIMITED = new Session(null, null, null);
+
+    private static final Object LOCK = new Object();
+    private static TokenBucket global;
+    private static Semaphore openFiles;
+    private static int maxOpenFiles;
+    /**
+     * Buckets of jobs, referenced weakly so that buckets no longer used by any copy are dropped.
+     */
+    private static final Map<String, WeakReference<TokenBucket>> JOBS = new HashMap<>();
+
+    private static final AtomicInteger waiting = new AtomicInteger();
+    private static final AtomicLong totalWaitNanos = new AtomicLong();
+
+    private CopyThrottle() {
+    }
+
+    /**
+     * Starts limiting a copy with the current configuration.
+     *
+     * @param job the full name of the job to copy artifacts of
+     * @return the limits to apply to the copy
+     */
+    @NonNull
+    static Session start(@NonNull String job) {
+        CopyArtifactConfiguration config = CopyArtifactConfiguration.get();
+        if (config == null) {
+            return UNLIMITED;
+        }
+        long rate = config.getMaxCopyBandwidth() * MB;
+        long jobRate = config.getMaxCopyBandwidthPerJob() * MB;
+        int files = config.getMaxOpenFiles();
+        synchronized (LOCK) {
+            if (global == null || global.rate != rate) {
+                global = (rate > 0) ? new TokenBucket(rate) : null;
+            }
+            if (files != maxOpenFiles) {
+                // files already open are released to the previous semaphore.
+                openFiles = (files > 0) ? new Semaphore(files, true) : null;
+                maxOpenFiles = files;
+            }
+            TokenBucket perJob = null;
+            if (jobRate > 0) {
+                JOBS.values().removeIf(ref -> ref.get() == null);
+                WeakReference<TokenBucket> ref = JOBS.get(job);
+                perJob = (ref != null) ? ref.get() : null;
+                if (perJob == null || perJob.rate != jobRate) {
+                    perJob = new TokenBucket(jobRate);
+                    JOBS.put(job, new WeakReference<>(perJob));
+                }
+            } else {
+                JOBS.clear();
+            }
+            return new Session(global, perJob, openFiles);
+        }
+    }
+
+    /**
+     * @return the number of copies currently waiting for the throttle
+     */
+    static int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * @return the total time copies waited for the throttle since the controller started, in milliseconds
+     */
+    static long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+    }
+
+    /**
+     * @param job the full name of the job
+     * @return whether copies of artifacts of the job share a bucket now. Package scope for testing purpose.
+     */
+    static boolean hasBucket(@NonNull String job) {
+        synchronized (LOCK) {
+            WeakReference<TokenBucket> ref = JOBS.get(job);
+            return ref != null && ref.get() != null;
+        }
+    }
+
+    /**
+     * Tokens refilled at a constant rate, up to the amount of one second.
+     */
+    static final class TokenBucket {
+        final long rate;
+        private double tokens;
+        private long refilled;
+
+        TokenBucket(long rate) {
+            this.rate = rate;
+            this.tokens = rate;
+            this.refilled = System.nanoTime();
+        }
+
+        /**
+         * Takes tokens, possibly more than available.
+         *
+         * @param n the number of tokens to take
+         * @return nanoseconds to wait before using them
+         */
+        synchronized long reserve(long n) {
+            long now = System.nanoTime();
+            tokens = Math.min(rate, tokens + (now - refilled) * (double) rate / TimeUnit.SECONDS.toNanos(1));
+            refilled = now;
+            tokens -= n;
+            return (tokens >= 0) ? 0 : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / rate);
+        }
+    }
+
+    /**
+     * The limits applied to a copy, recording how long the copy waited for them.
+     */
+    static final class Session {
+        @CheckForNull
+        private final TokenBucket global;
+        @CheckForNull
+        private final TokenBucket job;
+        @CheckForNull
+        private final Semaphore openFiles;
+        private final AtomicLong bandwidthWaitNanos = new AtomicLong();
+        private final AtomicLong openFilesWaitNanos = new AtomicLong();
+
+        Session(@CheckForNull TokenBucket global, @CheckForNull TokenBucket job, @CheckForNull Semaphore openFiles) {
+            this.global = global;
+            this.job = job;
+            this.openFiles = openFiles;
+        }
+
+        /**
+         * Waits until bytes can be read.
+         *
+         * @param bytes the number of bytes to read
+         * @throws InterruptedException if any thread interrupts the current thread.
+         */
+        void acquire(long bytes) throws InterruptedException {
+            if (bytes <= 0 || (global == null && job == null)) {
+                return;
+            }
+            long wait = 0;
+            if (global != null) {
+                wait = global.reserve(bytes);
+            }
+            if (job != null) {
+                wait = Math.max(wait, job.reserve(bytes));
+            }
+            if (wait > 0) {
+                waiting.incrementAndGet();
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } finally {
+                    waiting.decrementAndGet();
+                    bandwidthWaitNanos.addAndGet(wait);
+                    totalWaitNanos.addAndGet(wait);
+                }
+            }
+        }
+
+        /**
+         * Waits until a file can be opened.
+         *
+         * @return releases the file when closed
+         * @throws InterruptedException if any thread interrupts the current thread.
+         */
+        @NonNull
+        OpenFile open() throws InterruptedException {
+            Semaphore s = openFiles;
+            if (s == null) {
+                return () -> { };
+            }
+            if (!s.tryAcquire()) {
+                long start = System.nanoTime();
+                waiting.incrementAndGet();
+                try {
+                    s.acquire();
+                } finally {
+                    waiting.decrementAndGet();
+                    long wait = System.nanoTime() - start;
+                    openFilesWaitNanos.addAndGet(wait);
+                    totalWaitNanos.addAndGet(wait);
+                }
+            }
+            return s::release;
+        }
+
+        /**
+         * @param in the stream to read an artifact
+         * @return the stream reading at most at the allowed rate
+         */
+        @NonNull
+        InputStream throttle(@NonNull InputStream in) {
+            if (global == null && job == null) {
+                return in;
+            }
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        acquireInterruptibly(1);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    acquireInterruptibly(n);
+                    return n;
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                    long skipped = super.skip(n);
+                    acquireInterruptibly(skipped);
+                    return skipped;
+                }
+            };
+        }
+
+        private void acquireInterruptibly(long bytes) throws IOException {
+            try {
+                acquire(bytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttled");
+            }
+        }
+
+        /**
+         * Reports how long the copy waited, if it did.
+         *
+         * @param listener the listener to report to
+         */
+        void report(@NonNull TaskListener listener) {
+            long bandwidth = TimeUnit.NANOSECONDS.toMillis(bandwidthWaitNanos.get());
+            long files = TimeUnit.NANOSECONDS.toMillis(openFilesWaitNanos.get());
+            if (bandwidth > 0 || files > 0) {
+                listener.getLogger().println(Messages.CopyArtifact_Throttled(bandwidth, files));
+            }
+        }
+    }
+
+    /**
+     * A file counted as open.
+     */
+    interface OpenFile extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import java.io.Serializable;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Extension point for digest algorithms used while copying artifacts,
+ * e.g. to identify files in the artifact cache of nodes.
+ *
+ * Fingerprints recorded by Jenkins are always MD5 digests, regardless of this.
+ * Algorithms are sent to nodes to compute digests there,
+ * so implementations must be serializable and must not rely on security providers of the controller.
+ *
+ * @see CopyArtifactConfiguration#getCacheDigestAlgorithm()
+ * @since TODO
+ */
+public abstract class DigestAlgorithm implements ExtensionPoint, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @return the name of the algorithm. Also used as a directory name in caches.
+     */
+    @NonNull
+    public abstract String getName();
+
+    /**
+     * @return a new digest to compute.
+     */
+    @NonNull
+    public abstract MessageDigest newDigest();
+
+    /**
+     * @return all available algorithms.
+     */
+    @NonNull
+    public static ExtensionList<DigestAlgorithm> all() {
+        return ExtensionList.lookup(DigestAlgorithm.class);
+    }
+
+    /**
+     * @param name the name of the algorithm
+     * @return the algorithm. {@code null} if not available.
+     */
+    @CheckForNull
+    public static DigestAlgorithm byName(@CheckForNull String name) {
+        for (DigestAlgorithm algorithm : all()) {
+            if (algorithm.getName().equals(name)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * An algorithm provided by the Java platform.
+     */
+    public abstract static class Standard extends DigestAlgorithm {
+        private static final long serialVersionUID = 1L;
+        private final String name;
+
+        /**
+         * @param name the standard name of the algorithm, which every Java platform supports.
+         */
+        protected Standard(@NonNull String name) {
+            this.name = name;
+        }
+
+        @NonNull
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @NonNull
+        @Override
+        public MessageDigest newDigest() {
+            try {
+                return MessageDigest.getInstance(name);
+            } catch (NoSuchAlgorithmException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * MD5, which is also used for fingerprints, so that recorded digests are reused.
+     */
+    @Extension(ordinal = 100)
+    public static final class MD5 extends Standard {
+        private static final long serialVersionUID = 1L;
+
+        public MD5() {
+            super("MD5");
+        }
+    }
+
+    /**
+     * SHA-256, for stronger integrity at the cost of computing digests of copied files separately.
+     */
+    @Extension
+    public static final class SHA256 extends Standard {
+        private static final long serialVersionUID = 1L;
+
+        public SHA256() {
+            super("SHA-256");
+        }
+    }
+}
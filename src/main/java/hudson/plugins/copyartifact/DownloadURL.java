@@ -0,0 +1,331 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.httpclient.RobustHTTPClient;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+
+/**
+ * Downloads a file from an external URL provided by the artifact manager,
+ * optionally computing its MD5 digest.
+ *
+ * When more than one connection is allowed, the file is requested in byte ranges:
+ * the response for the first range tells the size of the file,
+ * and the remaining ranges are fetched concurrently and written at their offsets.
+ * Ranges are hashed in order as they complete.
+ * Servers not supporting ranges just respond the whole file, which is then
+ * downloaded as a single stream.
+ * Connections are taken from the {@link HttpConnectionPool} of the copy operation.
+ * A partial file left by an interrupted download is continued from its end
+ * when the server supports ranges, and downloaded again otherwise.
+ * Servers may reject the first range as not satisfiable when there is nothing left to download,
+ * e.g. for an empty file: the file is then complete if the server tells its size,
+ * and requested again without a range otherwise.
+ */
+final class DownloadURL extends MasterToSlaveFileCallable<byte[]> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The default size of each range.
+     */
+    static final long DEFAULT_RANGE_SIZE = 16 * 1024 * 1024;
+
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+    private static final Pattern UNSATISFIED_CONTENT_RANGE = Pattern.compile("bytes \\*/(\\d+)");
+
+    private final URL u;
+    private final TaskListener listener;
+    private final boolean computeDigest;
+    private final int connections;
+    private final long rangeSize;
+    private final HttpConnectionPool.Ref pool;
+    private final long offset;
+
+    /**
+     * @param u the URL to download
+     * @param listener the listener to report retries
+     * @param computeDigest whether to compute the MD5 digest
+     * @param connections the number of connections to download a single file
+     * @param rangeSize the size of each range
+     * @param pool the connection pool of the operation
+     * @param offset the size of the existing partial file to continue, or {@code 0} to download from the start
+     */
+    DownloadURL(@NonNull URL u, @NonNull TaskListener listener, boolean computeDigest, int connections, long rangeSize,
+            @NonNull HttpConnectionPool.Ref pool, long offset) {
+        this.u = u;
+        this.listener = listener;
+        this.computeDigest = computeDigest;
+        this.connections = connections;
+        this.rangeSize = rangeSize;
+        this.pool = pool;
+        this.offset = offset;
+    }
+
+    @Override
+    public byte[] invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+        hudson.util.IOUtils.mkdirs(f.getParentFile());
+        HttpConnectionPool client = pool.get();
+        String what = "download " + RobustHTTPClient.sanitize(u) + " to " + f;
+        MessageDigest md5 = computeDigest ? CopyOperation.md5() : null;
+        ExecutorService executor = (connections > 1) ? Executors.newFixedThreadPool(
+                connections - 1,
+                new NamingThreadFactory(new DaemonThreadFactory(), "CopyArtifact download")
+        ) : null;
+        try (FileChannel out = FileChannel.open(f.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            out.truncate(offset);
+            Range firstRequested = null;
+            if (executor != null) {
+                firstRequested = new Range(offset, offset + rangeSize - 1);
+            } else if (offset > 0) {
+                firstRequested = new Range(offset, -1);
+            }
+            Range requested = firstRequested;
+            List<Range> ranges = new ArrayList<>();
+            AtomicBoolean submitted = new AtomicBoolean();
+            AtomicBoolean unsatisfiable = new AtomicBoolean();
+            HttpConnectionPool.ResponseUser received = response -> {
+                if (response.getStatusLine().getStatusCode() == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+                    if (Range.totalOf(response) != offset) {
+                        // requested again without a range.
+                        unsatisfiable.set(true);
+                        return;
+                    }
+                    // nothing left to download.
+                    if (md5 != null) {
+                        md5.reset();
+                        if (offset > 0) {
+                            hash(out, new Range(0, offset - 1), md5);
+                        }
+                    }
+                    return;
+                }
+                Range first = Range.of(response);
+                if (first != null && first.start != offset) {
+                    throw new IOException("Unexpected range " + first + " for " + what);
+                }
+                if (md5 != null) {
+                    md5.reset();
+                    if (first != null && offset > 0) {
+                        // the part downloaded by the interrupted attempt.
+                        hash(out, new Range(0, offset - 1), md5);
+                    }
+                }
+                if (first != null && first.end + 1 < first.total && submitted.compareAndSet(false, true)) {
+                    String etag = header(response, "ETag");
+                    for (long start = first.end + 1; start < first.total; start += rangeSize) {
+                        Range r = new Range(start, Math.min(start + rangeSize, first.total) - 1);
+                        r.result = executor.submit(() -> {
+                            fetch(client, out, r, etag, what);
+                            return null;
+                        });
+                        ranges.add(r);
+                    }
+                }
+                try (InputStream is = response.getEntity().getContent()) {
+                    long start = (first != null) ? first.start : 0;
+                    long written = write(is, out, start, md5);
+                    if (first != null && written != first.end - first.start + 1) {
+                        throw new IOException("Received " + written + " bytes instead of " + (first.end - first.start + 1) + " for " + what);
+                    }
+                    if (first == null) {
+                        // the whole file, shorter than what the interrupted attempt wrote.
+                        out.truncate(written);
+                    }
+                }
+            };
+            client.connect("download", what, () -> request(requested, null),
+                    status -> requested != null && status == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE, received, listener);
+            if (unsatisfiable.get()) {
+                client.connect("download", what, () -> request(null, null), received, listener);
+            }
+            for (Range r : ranges) {
+                waitFor(r.result);
+                if (md5 != null) {
+                    hash(out, r, md5);
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        return (md5 != null) ? md5.digest() : null;
+    }
+
+    private HttpGet request(@CheckForNull Range range, @CheckForNull String etag) {
+        HttpGet get = new HttpGet(u.toString());
+        if (range != null) {
+            get.setHeader("Range", "bytes=" + range.start + "-" + (range.end >= 0 ? Long.toString(range.end) : ""));
+            if (etag != null) {
+                // fails rather than mixing ranges of different versions.
+                get.setHeader("If-Range", etag);
+            }
+        }
+        return get;
+    }
+
+    private void fetch(HttpConnectionPool client, FileChannel out, Range r, String etag, String what) throws IOException, InterruptedException {
+        client.connect("download range", what + " (bytes " + r + ")", () -> request(r, etag), response -> {
+            Range received = Range.of(response);
+            if (received == null || received.start != r.start || received.end != r.end) {
+                throw new IOException("Server did not respond bytes " + r + " for " + what + ": " + response.getStatusLine());
+            }
+            try (InputStream is = response.getEntity().getContent()) {
+                long written = write(is, out, r.start, null);
+                if (written != r.end - r.start + 1) {
+                    throw new IOException("Received " + written + " bytes instead of " + (r.end - r.start + 1) + " for " + what);
+                }
+            }
+        }, listener);
+    }
+
+    private static long write(InputStream is, FileChannel out, long position, @CheckForNull MessageDigest md5) throws IOException {
+        byte[] buf = new byte[64 * 1024];
+        long written = 0;
+        int n;
+        while ((n = is.read(buf)) != -1) {
+            ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+            while (bb.hasRemaining()) {
+                written += out.write(bb, position + written);
+            }
+            if (md5 != null) {
+                md5.update(buf, 0, n);
+            }
+        }
+        return written;
+    }
+
+    private static void hash(FileChannel in, Range r, MessageDigest md5) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(64 * 1024);
+        long position = r.start;
+        while (position <= r.end) {
+            bb.clear();
+            bb.limit((int) Math.min(bb.capacity(), r.end + 1 - position));
+            int n = in.read(bb, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of file at " + position);
+            }
+            bb.flip();
+            md5.update(bb);
+            position += n;
+        }
+    }
+
+    private static void waitFor(Future<?> result) throws IOException, InterruptedException {
+        try {
+            result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @CheckForNull
+    private static String header(HttpResponse response, String name) {
+        Header h = response.getFirstHeader(name);
+        return (h != null) ? h.getValue() : null;
+    }
+
+    /**
+     * An inclusive byte range. The end is {@code -1} for the rest of the file.
+     */
+    private static final class Range {
+        final long start;
+        final long end;
+        long total = -1;
+        Future<?> result;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @param response a response
+         * @return the range of the partial content. {@code null} for the whole content.
+         */
+        @CheckForNull
+        static Range of(HttpResponse response) throws IOException {
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+                return null;
+            }
+            String value = header(response, "Content-Range");
+            Matcher m = (value != null) ? CONTENT_RANGE.matcher(value.trim()) : null;
+            if (m == null || !m.matches()) {
+                throw new IOException("Unsupported Content-Range: " + value);
+            }
+            Range r = new Range(Long.parseLong(m.group(1)), Long.parseLong(m.group(2)));
+            r.total = Long.parseLong(m.group(3));
+            return r;
+        }
+
+        /**
+         * @param response a response rejecting a range as not satisfiable
+         * @return the size of the file. {@code -1} if unknown.
+         */
+        static long totalOf(HttpResponse response) {
+            String value = header(response, "Content-Range");
+            Matcher m = (value != null) ? UNSATISFIED_CONTENT_RANGE.matcher(value.trim()) : null;
+            return (m != null && m.matches()) ? Long.parseLong(m.group(1)) : -1;
+        }
+
+        @Override
+        public String toString() {
+            return start + "-" + end;
+        }
+    }
+}
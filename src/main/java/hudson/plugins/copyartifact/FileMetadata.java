@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Functions;
+import hudson.Util;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Metadata of a copied file to restore in the target directory:
+ * the modification time and the mode of a file, or the target of a symbolic link.
+ * A file can also be copied from another file already in the target directory.
+ */
+final class FileMetadata implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String path;
+    private final long lastModified;
+    private final int mode;
+    @CheckForNull
+    private final String link;
+    @CheckForNull
+    private final String partial;
+    @CheckForNull
+    private final String source;
+
+    private FileMetadata(String path, long lastModified, int mode, String link, String partial, String source) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.mode = mode;
+        this.link = link;
+        this.partial = partial;
+        this.source = source;
+    }
+
+    /**
+     * @param path the path relative to the target directory
+     * @param lastModified the modification time. {@code 0} if unknown.
+     * @param mode the mode. {@code -1} if unknown.
+     * @return metadata of a regular file
+     */
+    static FileMetadata file(@NonNull String path, long lastModified, int mode) {
+        return new FileMetadata(path, lastModified, mode, null, null, null);
+    }
+
+    /**
+     * @param path the path relative to the target directory
+     * @param partial the path of the written file to rename to the path
+     * @param lastModified the modification time. {@code 0} if unknown.
+     * @param mode the mode. {@code -1} if unknown.
+     * @return metadata of a regular file written to a partial file
+     * @see PartialFiles
+     */
+    static FileMetadata file(@NonNull String path, @NonNull String partial, long lastModified, int mode) {
+        return new FileMetadata(path, lastModified, mode, null, partial, null);
+    }
+
+    /**
+     * @param path the path relative to the target directory
+     * @param source the path of a file with the same contents, already in the target directory
+     * @param lastModified the modification time. {@code 0} if unknown.
+     * @param mode the mode. {@code -1} if unknown.
+     * @return metadata of a regular file copied from another file in the target directory
+     */
+    static FileMetadata copyOf(@NonNull String path, @NonNull String source, long lastModified, int mode) {
+        return new FileMetadata(path, lastModified, mode, null, PartialFiles.partialPath(path, source), source);
+    }
+
+    /**
+     * @param path the path relative to the target directory
+     * @param link the target of the symbolic link
+     * @return metadata of a symbolic link
+     */
+    static FileMetadata symlink(@NonNull String path, @NonNull String link) {
+        return new FileMetadata(path, 0, -1, link, null, null);
+    }
+
+    @NonNull
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the path of the written file to rename to the path. {@code null} if written to the path directly.
+     */
+    @CheckForNull
+    String getPartial() {
+        return partial;
+    }
+
+    /**
+     * Resolves a path in a directory, refusing paths outside of the directory.
+     *
+     * @param dir the directory
+     * @param path the path relative to the directory
+     * @return the resolved file
+     * @throws IOException if the path points outside of the directory
+     */
+    @NonNull
+    static File resolve(@NonNull File dir, @NonNull String path) throws IOException {
+        Path root = dir.toPath().toAbsolutePath().normalize();
+        Path p = root.resolve(path).normalize();
+        if (!p.startsWith(root) || p.equals(root)) {
+            throw new IOException("Refusing to write " + path + " outside of " + dir);
+        }
+        return p.toFile();
+    }
+
+    /**
+     * Restores the metadata. Should be called on the node of the target directory.
+     * A partial file is renamed to the path first, after being copied from the source file if any.
+     *
+     * @param dir the target directory
+     * @param listener the listener to report problems
+     * @throws IOException if failed to restore the mode or to resolve the path
+     * @throws InterruptedException if interrupted while creating a symbolic link
+     */
+    void apply(@NonNull File dir, @NonNull TaskListener listener) throws IOException, InterruptedException {
+        File f = resolve(dir, path);
+        if (link != null) {
+            hudson.util.IOUtils.mkdirs(f.getParentFile());
+            Util.createSymlink(f.getParentFile(), link, f.getName(), listener);
+            return;
+        }
+        if (partial != null) {
+            Path written = resolve(dir, partial).toPath();
+            if (source != null) {
+                // a copy on the node, rather than a hard link the build could modify both files through.
+                hudson.util.IOUtils.mkdirs(written.toFile().getParentFile());
+                Files.copy(resolve(dir, source).toPath(), written, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try {
+                Files.move(written, f.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(written, f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (lastModified > 0 && !f.setLastModified(lastModified)) {
+            listener.getLogger().println("Failed to set the last modified time of " + f);
+        }
+        if (mode != -1 && !Functions.isWindows()) {
+            Files.setPosixFilePermissions(f.toPath(), Util.modeToPermissions(mode & 0777));
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.BulkChange;
+import hudson.Extension;
+import hudson.model.Fingerprint;
+import hudson.model.FingerprintMap;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.tasks.Fingerprinter;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+
+/**
+ * Records fingerprints of copied files in the background,
+ * so that copying builds do not wait for each fingerprint file to be written.
+ *
+ * Pending updates of the same digest are coalesced into a single write.
+ * Copying builds wait for their updates when they complete,
+ * and failures to record fingerprints are reported there as warnings.
+ * {@link Fingerprinter.FingerprintAction}s of builds are updated and saved at the end of each copy instead,
+ * so that they survive restarts of the controller during resumed builds,
+ * and copies by the same build are merged into a single action.
+ */
+final class FingerprintRecorder {
+    private static final Logger LOGGER = Logger.getLogger(FingerprintRecorder.class.getName());
+
+    /**
+     * The maximum number of digests pending to be recorded.
+     * Copies wait for the recorder beyond that.
+     */
+    static final int MAX_PENDING = 10000;
+
+    private static final FingerprintRecorder INSTANCE = new FingerprintRecorder();
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "CopyArtifact fingerprint recorder")
+    );
+
+    /**
+     * Updates not written yet, keyed by digests.
+     */
+    private final Map<String, Update> pending = new LinkedHashMap<>();
+
+    /**
+     * The sequence number of the last update requested by each copying build, keyed by externalizable ids.
+     */
+    private final Map<String, Long> requested = new HashMap<>();
+
+    /**
+     * Guards updates of {@link Fingerprinter.FingerprintAction}s by concurrent copies.
+     */
+    private final Object actionLock = new Object();
+
+    /**
+     * Failures to record fingerprints for each copying build, keyed by externalizable ids.
+     */
+    private final Map<String, Failure> failures = new HashMap<>();
+
+    private long queued;
+    private long written;
+    private boolean writing;
+
+    /**
+     * @return the fingerprint recorder of this controller
+     */
+    @NonNull
+    static FingerprintRecorder get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Requests to record that files were copied from a build to another.
+     * Records are added to {@link Fingerprinter.FingerprintAction}s of both builds and saved right away,
+     * while fingerprints are written in the background.
+     *
+     * @param src the build copied from, which files originate from unless already fingerprinted
+     * @param dst the copying build
+     * @param fingerprints names of files mapped to their MD5 digests
+     * @throws InterruptedException if interrupted while waiting for the recorder to catch up
+     */
+    void record(@NonNull Run<?, ?> src, @NonNull Run<?, ?> dst, @NonNull Map<String, String> fingerprints)
+            throws InterruptedException {
+        synchronized (this) {
+            while (pending.size() >= MAX_PENDING) {
+                wait();
+            }
+            for (Map.Entry<String, String> entry : fingerprints.entrySet()) {
+                Update update = pending.computeIfAbsent(entry.getValue(), digest -> new Update(src, entry.getKey()));
+                update.builds.add(src);
+                update.builds.add(dst);
+                update.copiers.add(dst.getExternalizableId());
+            }
+            requested.put(dst.getExternalizableId(), ++queued);
+            if (!writing) {
+                writing = true;
+                writer.submit(this::write);
+            }
+        }
+        addRecords(src, fingerprints);
+        addRecords(dst, fingerprints);
+    }
+
+    private void addRecords(Run<?, ?> r, Map<String, String> fingerprints) {
+        synchronized (actionLock) {
+            Fingerprinter.FingerprintAction fa = r.getAction(Fingerprinter.FingerprintAction.class);
+            if (fa != null) {
+                fa.add(fingerprints);
+            } else {
+                r.addAction(new Fingerprinter.FingerprintAction(r, fingerprints));
+            }
+        }
+        try {
+            r.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + r, e);
+        }
+    }
+
+    /**
+     * Waits for updates requested by a copying build to be written.
+     *
+     * @param dst the copying build
+     * @param listener the listener of the copying build, to warn failures
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    void flush(@NonNull Run<?, ?> dst, @NonNull TaskListener listener) throws InterruptedException {
+        String id = dst.getExternalizableId();
+        Failure failure;
+        synchronized (this) {
+            Long seq = requested.remove(id);
+            while (seq != null && written < seq) {
+                wait();
+            }
+            failure = failures.remove(id);
+        }
+        if (failure != null) {
+            listener.getLogger().println(Messages.CopyArtifact_FingerprintsFailed(failure.count, failure.cause));
+        }
+    }
+
+    private void write() {
+        while (true) {
+            Map<String, Update> updates;
+            long seq;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    writing = false;
+                    return;
+                }
+                updates = new LinkedHashMap<>(pending);
+                pending.clear();
+                seq = queued;
+                // copies waiting for room.
+                notifyAll();
+            }
+            FingerprintMap map = Jenkins.get().getFingerprintMap();
+            for (Map.Entry<String, Update> entry : updates.entrySet()) {
+                Update update = entry.getValue();
+                try {
+                    Fingerprint f = map.getOrCreate(update.origin, update.name, entry.getKey());
+                    try (BulkChange bc = new BulkChange(f)) {
+                        for (Run<?, ?> r : update.builds) {
+                            f.addFor(r);
+                        }
+                        bc.commit();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to record the fingerprint of " + update.name, e);
+                    synchronized (this) {
+                        for (String copier : update.copiers) {
+                            failures.computeIfAbsent(copier, k -> new Failure(e)).count++;
+                        }
+                    }
+                }
+            }
+            synchronized (this) {
+                written = seq;
+                notifyAll();
+            }
+        }
+    }
+
+    private static final class Update {
+        final Run<?, ?> origin;
+        final String name;
+        final Set<Run<?, ?>> builds = new LinkedHashSet<>();
+        final Set<String> copiers = new LinkedHashSet<>();
+
+        Update(Run<?, ?> origin, String name) {
+            this.origin = origin;
+            this.name = name;
+        }
+    }
+
+    private static final class Failure {
+        final Exception cause;
+        int count;
+
+        Failure(Exception cause) {
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Waits for fingerprints recorded by builds before they complete, including aborted builds.
+     */
+    @Extension
+    public static final class FlushOnCompletion extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            try {
+                get().flush(run, listener);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
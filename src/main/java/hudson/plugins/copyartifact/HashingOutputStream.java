@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes the digest of written bytes while passing them to another stream.
+ *
+ * Large files are hashed on another thread: written bytes are handed over in chunks
+ * through a bounded queue, so that hashing overlaps with the I/O of the copy
+ * and the writer blocks only when hashing falls behind.
+ */
+final class HashingOutputStream extends FilterOutputStream {
+    /**
+     * Files at least this size are hashed on another thread.
+     */
+    static final long ASYNC_THRESHOLD = 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int QUEUE_SIZE = 16;
+    private static final byte[] END = new byte[0];
+    private static final ExecutorService HASHERS = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "CopyArtifact digest")
+    );
+
+    private final MessageDigest digest;
+    @CheckForNull
+    private final BlockingQueue<byte[]> queue;
+    @CheckForNull
+    private final Future<?> hashing;
+    private byte[] chunk;
+    private int count;
+    private boolean ended;
+
+    /**
+     * @param out the stream to write to
+     * @param digest the digest to compute
+     * @param size the expected size of the written bytes. {@code -1} if unknown.
+     */
+    HashingOutputStream(@NonNull OutputStream out, @NonNull MessageDigest digest, long size) {
+        super(out);
+        this.digest = digest;
+        if (size >= ASYNC_THRESHOLD) {
+            BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+            this.queue = queue;
+            this.hashing = HASHERS.submit(() -> {
+                for (byte[] c = queue.take(); c != END; c = queue.take()) {
+                    digest.update(c);
+                }
+                return null;
+            });
+            this.chunk = new byte[CHUNK_SIZE];
+        } else {
+            this.queue = null;
+            this.hashing = null;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        if (queue == null) {
+            digest.update(b, off, len);
+            return;
+        }
+        while (len > 0) {
+            int n = Math.min(len, CHUNK_SIZE - count);
+            System.arraycopy(b, off, chunk, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == CHUNK_SIZE) {
+                put(chunk);
+                chunk = new byte[CHUNK_SIZE];
+                count = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            // lets the hashing thread finish even when the copy failed.
+            end();
+        }
+    }
+
+    /**
+     * Waits for all written bytes to be hashed.
+     *
+     * @return the digest of written bytes
+     * @throws IOException if interrupted while waiting
+     */
+    @NonNull
+    byte[] digest() throws IOException {
+        end();
+        if (hashing != null) {
+            try {
+                hashing.get();
+            } catch (InterruptedException e) {
+                hashing.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+        return digest.digest();
+    }
+
+    private void end() throws IOException {
+        if (queue == null || ended) {
+            return;
+        }
+        ended = true;
+        if (count > 0) {
+            put(Arrays.copyOf(chunk, count));
+        }
+        put(END);
+    }
+
+    private void put(byte[] c) throws IOException {
+        try {
+            queue.put(c);
+        } catch (InterruptedException e) {
+            hashing.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
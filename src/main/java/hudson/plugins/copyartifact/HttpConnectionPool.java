@@ -0,0 +1,297 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.AbortException;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.httpclient.RobustHTTPClient;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import jenkins.security.MasterToSlaveCallable;
+import jenkins.util.SystemProperties;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keep-alive HTTP connections shared by all downloads of a copy operation on a node,
+ * so that a connection and its TLS handshake are reused across files.
+ *
+ * Pools live in the JVM of the node, identified by the operation,
+ * and are closed by {@link Ref#close(VirtualChannel)} at the end of the operation.
+ * Requests are retried like {@link RobustHTTPClient} does, with the same timeout for each attempt:
+ * connecting, waiting for a connection of the pool, and waiting for data from a stalled server
+ * fail the attempt rather than hanging the copy.
+ * The time spent to open connections is measured.
+ */
+final class HttpConnectionPool {
+    private static final int ATTEMPTS = 10;
+    private static final long WAIT_MULTIPLIER = 100;
+    private static final long WAIT_MAXIMUM = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The timeout of each attempt in milliseconds, the same as {@link RobustHTTPClient} by default.
+     */
+    @Restricted(NoExternalUse.class)
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "for script console")
+    public static /* non-final for script console */ int TIMEOUT = SystemProperties.getInteger(HttpConnectionPool.class.getName() + ".timeout", (int) TimeUnit.MINUTES.toMillis(15));
+
+    private static final Map<String, HttpConnectionPool> POOLS = new ConcurrentHashMap<>();
+
+    private final CloseableHttpClient client;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong connectNanos = new AtomicLong();
+
+    private HttpConnectionPool(int connectionsPerHost) {
+        Registry<ConnectionSocketFactory> factories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", new TimedSocketFactory(PlainConnectionSocketFactory.getSocketFactory()))
+                .register("https", new TimedSocketFactory(SSLConnectionSocketFactory.getSystemSocketFactory()))
+                .build();
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager(factories);
+        manager.setDefaultMaxPerRoute(connectionsPerHost);
+        manager.setMaxTotal(Math.max(connectionsPerHost, 20));
+        RequestConfig config = RequestConfig.custom()
+                .setConnectTimeout(TIMEOUT)
+                .setConnectionRequestTimeout(TIMEOUT)
+                .setSocketTimeout(TIMEOUT)
+                .build();
+        client = HttpClientBuilder.create().useSystemProperties().setConnectionManager(manager).setDefaultRequestConfig(config).build();
+    }
+
+    /**
+     * Receives a successful response.
+     */
+    @FunctionalInterface
+    interface ResponseUser {
+        void use(@NonNull CloseableHttpResponse response) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Sends a request, retrying on failures other than client errors.
+     *
+     * @param whatConcise a short description of the request for retry messages
+     * @param whatVerbose a description of the request for errors
+     * @param request creates the request for each attempt
+     * @param user receives the successful response
+     * @param listener the listener to report retries
+     * @throws IOException if failed even after retries
+     * @throws InterruptedException if interrupted
+     */
+    void connect(String whatConcise, String whatVerbose, Supplier<HttpUriRequest> request, ResponseUser user,
+            TaskListener listener) throws IOException, InterruptedException {
+        connect(whatConcise, whatVerbose, request, status -> false, user, listener);
+    }
+
+    /**
+     * Sends a request, retrying on failures other than client errors.
+     *
+     * @param whatConcise a short description of the request for retry messages
+     * @param whatVerbose a description of the request for errors
+     * @param request creates the request for each attempt
+     * @param accepted tests unsuccessful statuses to pass to {@code user} rather than fail with
+     * @param user receives the successful or accepted response
+     * @param listener the listener to report retries
+     * @throws IOException if failed even after retries
+     * @throws InterruptedException if interrupted
+     */
+    void connect(String whatConcise, String whatVerbose, Supplier<HttpUriRequest> request, IntPredicate accepted,
+            ResponseUser user, TaskListener listener) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            int status = 0;
+            try {
+                requests.incrementAndGet();
+                try (CloseableHttpResponse response = client.execute(request.get())) {
+                    status = response.getStatusLine().getStatusCode();
+                    if ((status < 200 || status >= 300) && !accepted.test(status)) {
+                        throw new AbortException("Failed to " + whatVerbose + ": " + response.getStatusLine());
+                    }
+                    user.use(response);
+                    // releases the connection to the pool.
+                    EntityUtils.consume(response.getEntity());
+                }
+                return;
+            } catch (IOException x) {
+                // timed out even while receiving a successful response.
+                boolean recoverable = status == 0 || status >= 500 || status == 408 || status == 429
+                        || x instanceof SocketTimeoutException || x instanceof ConnectTimeoutException;
+                if (!recoverable || attempt >= ATTEMPTS) {
+                    throw x;
+                }
+                listener.getLogger().println("Retrying " + whatConcise + " after: "
+                        + (x instanceof AbortException ? x.getMessage() : x.toString()));
+                Thread.sleep(Math.min(WAIT_MAXIMUM, WAIT_MULTIPLIER << attempt));
+            }
+        }
+    }
+
+    private void close() throws IOException {
+        client.close();
+    }
+
+    /**
+     * Identifies a pool of an operation. Sent to the node of the target directory.
+     */
+    static final class Ref implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String id;
+        private final int connectionsPerHost;
+
+        /**
+         * @param id the identifier of the operation
+         * @param connectionsPerHost the maximum number of connections to each host
+         */
+        Ref(@NonNull String id, int connectionsPerHost) {
+            this.id = id;
+            this.connectionsPerHost = Math.max(1, connectionsPerHost);
+        }
+
+        /**
+         * Should be called on the node.
+         *
+         * @return the pool, created if not exists.
+         */
+        @NonNull
+        HttpConnectionPool get() {
+            return POOLS.computeIfAbsent(id, k -> new HttpConnectionPool(connectionsPerHost));
+        }
+
+        /**
+         * Closes the pool on the node.
+         *
+         * @param channel the channel of the node
+         * @return statistics of the pool. {@code null} if the pool was not used.
+         * @throws IOException if failed to close the pool
+         * @throws InterruptedException if interrupted
+         */
+        @CheckForNull
+        Stats close(@NonNull VirtualChannel channel) throws IOException, InterruptedException {
+            return channel.call(new Close(id));
+        }
+    }
+
+    /**
+     * Statistics of a pool.
+     */
+    static final class Stats implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final long requests;
+        final long connections;
+        final long connectMillis;
+
+        Stats(long requests, long connections, long connectMillis) {
+            this.requests = requests;
+            this.connections = connections;
+            this.connectMillis = connectMillis;
+        }
+    }
+
+    private static final class Close extends MasterToSlaveCallable<Stats, IOException> {
+        private static final long serialVersionUID = 1L;
+        private final String id;
+
+        Close(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public Stats call() throws IOException {
+            HttpConnectionPool pool = POOLS.remove(id);
+            if (pool == null) {
+                return null;
+            }
+            pool.close();
+            return new Stats(pool.requests.get(), pool.connections.get(), TimeUnit.NANOSECONDS.toMillis(pool.connectNanos.get()));
+        }
+    }
+
+    /**
+     * Measures the time to open connections, including TLS handshakes.
+     */
+    private final class TimedSocketFactory implements LayeredConnectionSocketFactory {
+        private final ConnectionSocketFactory delegate;
+
+        TimedSocketFactory(ConnectionSocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Socket createSocket(HttpContext context) throws IOException {
+            return delegate.createSocket(context);
+        }
+
+        @Override
+        public Socket connectSocket(int connectTimeout, Socket sock, HttpHost host, InetSocketAddress remoteAddress,
+                InetSocketAddress localAddress, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return delegate.connectSocket(connectTimeout, sock, host, remoteAddress, localAddress, context);
+            } finally {
+                connections.incrementAndGet();
+                connectNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+            if (!(delegate instanceof LayeredConnectionSocketFactory)) {
+                throw new IOException("Cannot upgrade the connection to " + target);
+            }
+            long start = System.nanoTime();
+            try {
+                return ((LayeredConnectionSocketFactory) delegate).createLayeredSocket(socket, target, port, context);
+            } finally {
+                connectNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.VirtualFile;
+
+/**
+ * Copies a file the node of the target directory can read directly,
+ * e.g. artifacts of the built-in node copied by a build on the built-in node,
+ * or artifacts on a storage shared with the agent.
+ *
+ * Bytes are transferred with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * which lets the operating system copy them without passing through the heap
+ * (and clone them on filesystems supporting {@code copy_file_range}).
+ * Hard links are never used as the copied file would share the contents with the artifact.
+ *
+ * The source file is used only when its size and modification time
+ * are the ones of the artifact, otherwise the caller falls back to streaming the artifact.
+ */
+final class LocalCopy extends MasterToSlaveFileCallable<LocalCopy.Result> {
+    private static final long serialVersionUID = 1L;
+    private static final long MAP_SIZE = 64 * 1024 * 1024;
+
+    private final String source;
+    private final long size;
+    private final long lastModified;
+    private final long offset;
+    private final boolean computeDigest;
+
+    /**
+     * @param source the absolute path of the source file
+     * @param size the size of the artifact
+     * @param lastModified the modification time of the artifact
+     * @param offset the size of the existing partial file to continue, or {@code 0} to copy from the start
+     * @param computeDigest whether to compute the MD5 digest of the file
+     */
+    LocalCopy(@NonNull String source, long size, long lastModified, long offset, boolean computeDigest) {
+        this.source = source;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.offset = offset;
+        this.computeDigest = computeDigest;
+    }
+
+    /**
+     * @param s the artifact
+     * @return the absolute path of the artifact if it is a file on a filesystem. {@code null} otherwise.
+     */
+    @CheckForNull
+    static String pathOf(@NonNull VirtualFile s) {
+        URI uri = s.toURI();
+        if (!"file".equals(uri.getScheme())) {
+            return null;
+        }
+        return new File(uri).getAbsolutePath();
+    }
+
+    @Override
+    public Result invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+        Path src = new File(source).toPath();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(src, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            // not visible from this node.
+            return null;
+        }
+        if (!attrs.isRegularFile() || attrs.size() != size || attrs.lastModifiedTime().toMillis() != lastModified) {
+            return null;
+        }
+        hudson.util.IOUtils.mkdirs(f.getParentFile());
+        MessageDigest md5 = computeDigest ? CopyOperation.md5() : null;
+        try (FileChannel in = FileChannel.open(src, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(f.toPath(),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            out.truncate(offset);
+            long position = offset;
+            while (position < size) {
+                long transferred = in.transferTo(position, size - position, out.position(position));
+                if (transferred <= 0) {
+                    throw new IOException(source + " was truncated while copied");
+                }
+                position += transferred;
+            }
+            if (md5 != null) {
+                // mapped rather than read, as this is likely in the page cache.
+                for (long start = 0; start < size; start += MAP_SIZE) {
+                    MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_SIZE, size - start));
+                    md5.update(buf);
+                }
+            }
+        }
+        return new Result(md5 != null ? md5.digest() : null);
+    }
+
+    /**
+     * The result of a copy.
+     */
+    static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+        @CheckForNull
+        final byte[] digest;
+
+        Result(@CheckForNull byte[] digest) {
+            this.digest = digest;
+        }
+    }
+}
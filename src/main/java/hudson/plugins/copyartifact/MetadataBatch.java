@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Collects {@link FileMetadata} of copied files and restores them
+ * in the target directory with a single remoting call for each chunk of files,
+ * instead of several calls for each file.
+ *
+ * Can be used from several threads at the same time.
+ */
+final class MetadataBatch {
+    /**
+     * Number of files whose metadata are restored with a single remoting call.
+     */
+    static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final FilePath targetDir;
+    private final TaskListener listener;
+    private final int batchSize;
+    private List<FileMetadata> pending = new ArrayList<>();
+
+    MetadataBatch(@NonNull FilePath targetDir, @NonNull TaskListener listener, int batchSize) {
+        this.targetDir = targetDir;
+        this.listener = listener;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    MetadataBatch(@NonNull FilePath targetDir, @NonNull TaskListener listener) {
+        this(targetDir, listener, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Queues metadata to restore, and restores queued ones if the chunk is full.
+     *
+     * @param metadata metadata to restore
+     * @throws IOException if an error occurs while restoring queued metadata.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    void add(@NonNull FileMetadata metadata) throws IOException, InterruptedException {
+        List<FileMetadata> chunk = null;
+        synchronized (this) {
+            pending.add(metadata);
+            if (pending.size() >= batchSize) {
+                chunk = pending;
+                pending = new ArrayList<>();
+            }
+        }
+        if (chunk != null) {
+            apply(chunk);
+        }
+    }
+
+    /**
+     * Restores all queued metadata.
+     *
+     * @throws IOException if an error occurs while restoring metadata.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    void flush() throws IOException, InterruptedException {
+        List<FileMetadata> chunk;
+        synchronized (this) {
+            chunk = pending;
+            pending = new ArrayList<>();
+        }
+        if (!chunk.isEmpty()) {
+            apply(chunk);
+        }
+    }
+
+    private void apply(List<FileMetadata> chunk) throws IOException, InterruptedException {
+        targetDir.act(new Apply(chunk, listener));
+    }
+
+    private static final class Apply extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final List<FileMetadata> chunk;
+        private final TaskListener listener;
+
+        Apply(List<FileMetadata> chunk, TaskListener listener) {
+            this.chunk = chunk;
+            this.listener = listener;
+        }
+
+        @Override
+        public Void invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            for (FileMetadata metadata : chunk) {
+                try {
+                    metadata.apply(dir, listener);
+                } catch (IOException e) {
+                    throw new IOException("Failed to restore attributes of " + new File(dir, metadata.getPath()), e);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.RemoteOutputStream;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.InflaterOutputStream;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Partially copied files.
+ *
+ * Files are written to a hidden sibling {@code .<name>.<id>.copyartifact-part}
+ * and renamed to the target path once completely written,
+ * so that an interrupted copy never leaves a truncated file at the target path.
+ * The identifier is derived from the source file, so that a later attempt
+ * to copy the same source file continues the partial file from its end,
+ * while partial files of other versions are discarded.
+ */
+final class PartialFiles {
+    static final String SUFFIX = ".copyartifact-part";
+
+    private PartialFiles() {
+    }
+
+    /**
+     * @param path the path of the target file
+     * @param identity identifies the contents of the source file, e.g. its path, size and modification time
+     * @return the path of the partial file
+     */
+    @NonNull
+    static String partialPath(@NonNull String path, @NonNull String identity) {
+        int slash = path.lastIndexOf('/');
+        String dir = path.substring(0, slash + 1);
+        String name = path.substring(slash + 1);
+        String id = Util.getDigestOf(identity).substring(0, 8);
+        return dir + "." + name + "." + id + SUFFIX;
+    }
+
+    /**
+     * Looks up partial files left by interrupted copies, discarding ones for other versions of files.
+     *
+     * @param targetDir the directory to copy into
+     * @param partialPaths paths of target files mapped to paths of their partial files
+     * @return paths of existing partial files mapped to their sizes
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @NonNull
+    static Map<String, Long> find(@NonNull FilePath targetDir, @NonNull Map<String, String> partialPaths)
+            throws IOException, InterruptedException {
+        if (partialPaths.isEmpty()) {
+            return new HashMap<>();
+        }
+        return targetDir.act(new Find(partialPaths));
+    }
+
+    /**
+     * @param f the partial file
+     * @param offset the size of the existing partial file to continue, or {@code 0} to write from the start
+     * @param inflate whether the bytes written to the stream are deflated
+     * @return the stream to write the rest of the file
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     * @see WireCompression
+     */
+    @NonNull
+    static OutputStream open(@NonNull FilePath f, long offset, boolean inflate) throws IOException, InterruptedException {
+        return f.act(new Open(offset, inflate));
+    }
+
+    private static final class Find extends MasterToSlaveFileCallable<Map<String, Long>> {
+        private static final long serialVersionUID = 1L;
+        private final Map<String, String> partialPaths;
+
+        Find(Map<String, String> partialPaths) {
+            this.partialPaths = partialPaths;
+        }
+
+        @Override
+        public Map<String, Long> invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            Map<String, Long> found = new HashMap<>();
+            Set<File> expected = new HashSet<>();
+            for (String partial : partialPaths.values()) {
+                expected.add(FileMetadata.resolve(dir, partial));
+            }
+            for (Map.Entry<String, String> entry : partialPaths.entrySet()) {
+                File target = FileMetadata.resolve(dir, entry.getKey());
+                String prefix = "." + target.getName() + ".";
+                File[] siblings = target.getParentFile().listFiles(
+                        (d, name) -> name.startsWith(prefix) && name.endsWith(SUFFIX)
+                );
+                if (siblings == null) {
+                    continue;
+                }
+                for (File sibling : siblings) {
+                    if (!expected.contains(sibling)) {
+                        // left by a copy of another version.
+                        Files.deleteIfExists(sibling.toPath());
+                    } else if (Files.isRegularFile(sibling.toPath(), LinkOption.NOFOLLOW_LINKS)) {
+                        found.put(entry.getValue(), sibling.length());
+                    }
+                }
+            }
+            return found;
+        }
+    }
+
+    private static final class Open extends MasterToSlaveFileCallable<OutputStream> {
+        private static final long serialVersionUID = 1L;
+        private final long offset;
+        private final boolean inflate;
+
+        Open(long offset, boolean inflate) {
+            this.offset = offset;
+            this.inflate = inflate;
+        }
+
+        @Override
+        public OutputStream invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+            hudson.util.IOUtils.mkdirs(f.getParentFile());
+            OutputStream os;
+            if (offset > 0) {
+                try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.WRITE)) {
+                    // drops anything beyond the offset the copy continues from.
+                    fc.truncate(offset);
+                }
+                os = Files.newOutputStream(f.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } else {
+                os = Files.newOutputStream(f.toPath());
+            }
+            return new RemoteOutputStream(inflate ? new InflaterOutputStream(os) : os);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.remoting.VirtualChannel;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.VirtualFile;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Finds files in the target directory which are already identical to the source ones,
+ * so that the sync mode of {@link CopyArtifact} transfers only new or changed files.
+ *
+ * Files are compared by their sizes and modification times with a single remoting call,
+ * and optionally confirmed by comparing MD5 digests.
+ * Digests already computed for the source build are not computed again.
+ */
+final class SyncCheck {
+    /**
+     * Tolerance for modification times, as some file systems store them in seconds.
+     */
+    static final long MTIME_TOLERANCE = 1000;
+
+    private final VirtualFile srcDir;
+    private final FilePath targetDir;
+    private final boolean verifyDigest;
+    private final Predicate<String> fingerprint;
+    private final Map<String, String> recorded;
+    private final CopyThrottle.Session throttle;
+    private int skippedFiles;
+    private long skippedBytes;
+
+    /**
+     * @param srcDir the directory to copy from
+     * @param targetDir the directory to copy into
+     * @param verifyDigest whether to confirm unchanged files by comparing MD5 digests
+     * @param fingerprint tests whether the MD5 digest of an unchanged entry is required for fingerprinting
+     * @param recorded MD5 digests of entries already computed for the source build
+     * @param throttle the limits of reading artifacts to verify files
+     */
+    SyncCheck(@NonNull VirtualFile srcDir, @NonNull FilePath targetDir, boolean verifyDigest, @NonNull Predicate<String> fingerprint,
+            @NonNull Map<String, String> recorded, @NonNull CopyThrottle.Session throttle) {
+        this.srcDir = srcDir;
+        this.targetDir = targetDir;
+        this.verifyDigest = verifyDigest;
+        this.fingerprint = fingerprint;
+        this.recorded = recorded;
+        this.throttle = throttle;
+    }
+
+    /**
+     * @param entries entries of the source directory mapped to paths relative to the target directory
+     * @return unchanged entries mapped to their MD5 digests, or to {@code null} if not computed.
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @NonNull
+    Map<String, String> findUnchanged(@NonNull Map<String, String> entries) throws IOException, InterruptedException {
+        List<Candidate> candidates = new ArrayList<>();
+        Map<String, Long> sizes = new HashMap<>();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            VirtualFile s = srcDir.child(entry.getKey());
+            if (s.readLink() != null) {
+                // symbolic links are cheap to create again.
+                continue;
+            }
+            long lastModified = s.lastModified();
+            if (lastModified <= 0) {
+                continue;
+            }
+            long size = s.length();
+            boolean digest = verifyDigest || (fingerprint.test(entry.getKey()) && !recorded.containsKey(entry.getKey()));
+            candidates.add(new Candidate(entry.getValue(), size, lastModified, digest));
+            sizes.put(entry.getKey(), size);
+        }
+        if (candidates.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Map<String, String> unchangedPaths = targetDir.act(new FindUnchanged(candidates, !verifyDigest));
+
+        Map<String, String> unchanged = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            if (!unchangedPaths.containsKey(entry.getValue())) {
+                continue;
+            }
+            String digest = unchangedPaths.get(entry.getValue());
+            if (verifyDigest && !verify(entry.getKey(), digest)) {
+                continue;
+            }
+            unchanged.put(entry.getKey(), recorded.containsKey(entry.getKey()) ? recorded.get(entry.getKey()) : digest);
+            skippedFiles++;
+            skippedBytes += sizes.get(entry.getKey());
+        }
+        return unchanged;
+    }
+
+    private boolean verify(String entry, String digest) throws IOException, InterruptedException {
+        if (digest == null) {
+            return false;
+        }
+        if (recorded.containsKey(entry)) {
+            return digest.equals(recorded.get(entry));
+        }
+        VirtualFile s = srcDir.child(entry);
+        if (s.toExternalURL() != null) {
+            // not worth downloading just to compare.
+            return false;
+        }
+        return digest.equals(CopyOperation.digestOf(s, throttle));
+    }
+
+    /**
+     * @return the number of files found unchanged.
+     */
+    int getSkippedFiles() {
+        return skippedFiles;
+    }
+
+    /**
+     * @return the total size of files found unchanged.
+     */
+    long getSkippedBytes() {
+        return skippedBytes;
+    }
+
+    private static final class Candidate implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final boolean digest;
+
+        Candidate(String path, long size, long lastModified, boolean digest) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
+
+    /**
+     * Returns paths of files with the same size and modification time,
+     * mapped to their MD5 digests if requested for the file.
+     * Digests recorded in the manifest of the directory can be used for files not changed since copied,
+     * unless digests are computed to verify files.
+     */
+    private static final class FindUnchanged extends MasterToSlaveFileCallable<Map<String, String>> {
+        private static final long serialVersionUID = 1L;
+        private final List<Candidate> candidates;
+        private final boolean trustManifest;
+
+        FindUnchanged(List<Candidate> candidates, boolean trustManifest) {
+            this.candidates = candidates;
+            this.trustManifest = trustManifest;
+        }
+
+        @Override
+        public Map<String, String> invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            Map<String, String> unchanged = new HashMap<>();
+            CopyManifest manifest = trustManifest ? CopyManifest.of(dir) : null;
+            for (Candidate c : candidates) {
+                Path p = FileMetadata.resolve(dir, c.path).toPath();
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (!attrs.isRegularFile()
+                        || attrs.size() != c.size
+                        || Math.abs(attrs.lastModifiedTime().toMillis() - c.lastModified) >= MTIME_TOLERANCE) {
+                    continue;
+                }
+                String digest = null;
+                if (c.digest) {
+                    if (manifest != null) {
+                        // not changed since copied.
+                        digest = manifest.digestOf(c.path, attrs.size(), attrs.lastModifiedTime().toMillis());
+                    }
+                    if (digest == null) {
+                        digest = md5(p);
+                    }
+                }
+                unchanged.put(c.path, digest);
+            }
+            return unchanged;
+        }
+
+        private static String md5(Path p) throws IOException {
+            MessageDigest md5 = CopyOperation.md5();
+            try (InputStream is = Files.newInputStream(p)) {
+                IOUtils.copy(is, new DigestOutputStream(OutputStream.nullOutputStream(), md5));
+            }
+            return Util.toHexString(md5.digest());
+        }
+    }
+}
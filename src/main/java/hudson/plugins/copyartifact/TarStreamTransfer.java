@@ -0,0 +1,269 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteInputStream;
+import hudson.remoting.VirtualChannel;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.InflaterInputStream;
+import jenkins.MasterToSlaveFileCallable;
+import jenkins.util.VirtualFile;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+/**
+ * Transfers files into a target directory as a single tar stream.
+ *
+ * The archive is packed on the controller while it is unpacked on the agent,
+ * so copying many small files costs a single remoting call
+ * instead of several calls for each file.
+ * MD5 digests are computed on the controller as the bytes are packed.
+ * The stream can be compressed, with entries not worth compressing stored as they are.
+ */
+final class TarStreamTransfer {
+    private static final int PIPE_BUFFER_SIZE = 64 * 1024;
+    private static final int FILE_TYPE_REGULAR = TarArchiveEntry.DEFAULT_FILE_MODE & ~07777;
+
+    private final VirtualFile srcDir;
+    private final FilePath targetDir;
+    private final TaskListener listener;
+    @CheckForNull
+    private final WireCompression compression;
+    private final CopyThrottle.Session throttle;
+    private final CopyProgress progress;
+
+    /**
+     * @param srcDir the directory to copy from
+     * @param targetDir the directory to copy into
+     * @param listener the listener of the copying build
+     * @param compression how to compress the stream. {@code null} not to compress it.
+     * @param throttle the limits of reading artifacts
+     * @param progress counts transferred files
+     */
+    TarStreamTransfer(@NonNull VirtualFile srcDir, @NonNull FilePath targetDir, @NonNull TaskListener listener,
+            @CheckForNull WireCompression compression, @NonNull CopyThrottle.Session throttle, @NonNull CopyProgress progress) {
+        this.srcDir = srcDir;
+        this.targetDir = targetDir;
+        this.listener = listener;
+        this.compression = compression;
+        this.throttle = throttle;
+        this.progress = progress;
+    }
+
+    /**
+     * @param entries entries of the source directory mapped to paths relative to the target directory
+     * @param digested entries to compute MD5 digests of
+     * @return entries mapped to their MD5 digests, or to {@code null} if not computed.
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @NonNull
+    Map<String, String> transfer(@NonNull Map<String, String> entries, @NonNull Set<String> digested) throws IOException, InterruptedException {
+        PipedInputStream in = new PipedInputStream(PIPE_BUFFER_SIZE);
+        PipedOutputStream out = new PipedOutputStream(in);
+        AtomicBoolean aborted = new AtomicBoolean();
+        AtomicReference<IOException> packFailure = new AtomicReference<>();
+        Future<Void> unpacked = targetDir.actAsync(new Unpack(new RemoteInputStream(in, RemoteInputStream.Flag.GREEDY), listener, compression != null));
+        Future<Map<String, String>> packed = Computer.threadPoolForRemoting.submit(() -> {
+            try {
+                return pack(entries, digested, out);
+            } catch (IOException e) {
+                if (!aborted.get()) {
+                    // failures after aborted are just caused by the closed pipe.
+                    packFailure.set(e);
+                }
+                throw e;
+            }
+        });
+        try {
+            unpacked.get();
+        } catch (ExecutionException e) {
+            aborted.set(true);
+            // unblocks the packer waiting for the pipe to be read.
+            in.close();
+            try {
+                packed.get();
+            } catch (ExecutionException x) {
+                // reported below
+            }
+            if (packFailure.get() != null) {
+                // a broken archive is caused by the failure of the packer.
+                throw packFailure.get();
+            }
+            throw new IOException("Failed to unpack artifacts into " + targetDir, e.getCause());
+        } catch (InterruptedException e) {
+            aborted.set(true);
+            unpacked.cancel(true);
+            packed.cancel(true);
+            in.close();
+            throw e;
+        }
+        try {
+            return packed.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    private Map<String, String> pack(Map<String, String> entries, Set<String> digested, OutputStream out) throws IOException {
+        Map<String, String> digests = new LinkedHashMap<>();
+        boolean completed = false;
+        try {
+            WireCompression.Compressor compressor = (compression != null) ? compression.compress(out) : null;
+            TarArchiveOutputStream tar = new TarArchiveOutputStream(compressor != null ? compressor : out);
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                VirtualFile s = srcDir.child(entry.getKey());
+                try {
+                    digests.put(entry.getKey(), packOne(tar, compressor, s, entry.getValue(), digested.contains(entry.getKey())));
+                } catch (IOException e) {
+                    throw new IOException("Failed to copy " + s + " to " + new FilePath(targetDir, entry.getValue()), e);
+                }
+            }
+            tar.close();
+            completed = true;
+        } finally {
+            if (!completed) {
+                // closes without the end-of-archive marker.
+                out.close();
+            }
+        }
+        return digests;
+    }
+
+    private String packOne(TarArchiveOutputStream tar, @CheckForNull WireCompression.Compressor compressor,
+            VirtualFile s, String path, boolean fingerprint) throws IOException {
+        String link = s.readLink();
+        if (link != null) {
+            TarArchiveEntry te = new TarArchiveEntry(path, TarConstants.LF_SYMLINK);
+            te.setLinkName(link);
+            tar.putArchiveEntry(te);
+            tar.closeArchiveEntry();
+            progress.copied(0);
+            return null;
+        }
+        TarArchiveEntry te = new TarArchiveEntry(path);
+        te.setSize(s.length());
+        te.setModTime(s.lastModified());
+        int mode = s.mode();
+        te.setMode(FILE_TYPE_REGULAR | (mode != -1 ? mode & 0777 : 0));
+        tar.putArchiveEntry(te);
+        String digest = null;
+        CopyThrottle.OpenFile file;
+        try {
+            file = throttle.open();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttled");
+        }
+        try (file; InputStream is = CopyOperation.open(s, throttle, compressor != null)) {
+            if (compressor != null) {
+                // applies to the following bytes, including ones still buffered by the archive stream.
+                compressor.setCompressing(WireCompression.isWorthCompressing((BufferedInputStream) is, path));
+            }
+            if (fingerprint) {
+                // not to close the archive stream.
+                try (HashingOutputStream os = new HashingOutputStream(CloseShieldOutputStream.wrap(tar), CopyOperation.md5(), te.getSize())) {
+                    IOUtils.copy(is, os);
+                    long waited = System.nanoTime();
+                    digest = Util.toHexString(os.digest());
+                    progress.hashed(System.nanoTime() - waited);
+                }
+            } else {
+                IOUtils.copy(is, tar);
+            }
+        }
+        tar.closeArchiveEntry();
+        progress.copied(te.getSize());
+        return digest;
+    }
+
+    /**
+     * Unpacks a tar stream into the directory, preserving the modification time,
+     * the mode and symbolic links.
+     */
+    private static final class Unpack extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final InputStream in;
+        private final TaskListener listener;
+        private final boolean compressed;
+
+        Unpack(InputStream in, TaskListener listener, boolean compressed) {
+            this.in = in;
+            this.listener = listener;
+            this.compressed = compressed;
+        }
+
+        @Override
+        public Void invoke(File dir, VirtualChannel channel) throws IOException, InterruptedException {
+            try (TarArchiveInputStream tar = new TarArchiveInputStream(compressed ? new InflaterInputStream(in) : in)) {
+                TarArchiveEntry te;
+                while ((te = tar.getNextTarEntry()) != null) {
+                    if (te.isSymbolicLink()) {
+                        FileMetadata.symlink(te.getName(), te.getLinkName()).apply(dir, listener);
+                        continue;
+                    }
+                    // written aside and renamed by FileMetadata, so that the file itself is never left truncated.
+                    String partial = PartialFiles.partialPath(te.getName(), te.getName() + ":" + te.getSize());
+                    File f = FileMetadata.resolve(dir, partial);
+                    hudson.util.IOUtils.mkdirs(f.getParentFile());
+                    try (OutputStream os = Files.newOutputStream(f.toPath())) {
+                        IOUtils.copy(tar, os);
+                    }
+                    int mode = te.getMode() & 0777;
+                    FileMetadata.file(te.getName(), partial, te.getModTime().getTime(), mode != 0 ? mode : -1)
+                            .apply(dir, listener);
+                }
+            }
+            return null;
+        }
+    }
+}
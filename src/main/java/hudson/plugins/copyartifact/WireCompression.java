@@ -0,0 +1,193 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Functions;
+import hudson.model.TaskListener;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+
+/**
+ * Compression of the bytes sent to the node of the target directory.
+ *
+ * Files of types known to be compressed already, or whose first bytes look random,
+ * are sent as they are, as compressing them again costs CPU for nothing.
+ * The sizes before and after compression are counted for the whole copy.
+ */
+final class WireCompression {
+    static final int SAMPLE_SIZE = 64 * 1024;
+    /**
+     * Samples with more bits of information per byte are considered not compressible.
+     */
+    static final double MAX_ENTROPY = 7.5;
+    private static final int LEVEL = Deflater.BEST_SPEED;
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "7z", "apk", "br", "bz2", "deb", "ear", "gif", "gz", "hpi", "jar", "jpeg", "jpg", "jpi", "lz4", "mp3",
+            "mp4", "nupkg", "png", "rar", "rpm", "tbz2", "tgz", "txz", "war", "webp", "whl", "woff", "woff2", "xz", "zip", "zst"
+    );
+
+    private final AtomicLong raw = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+
+    /**
+     * @param path the path of the file
+     * @return whether the file is of a type known to be compressed already
+     */
+    static boolean isCompressedType(@NonNull String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/')) {
+            return false;
+        }
+        return COMPRESSED_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * @param sample bytes of a file
+     * @param length the number of bytes in the sample
+     * @return the Shannon entropy of the sample in bits per byte
+     */
+    static double entropy(@NonNull byte[] sample, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        int[] counts = new int[256];
+        for (int i = 0; i < length; ++i) {
+            ++counts[sample[i] & 0xff];
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / length;
+                entropy -= p * Math.log(p) / Math.log(2);
+            }
+        }
+        return entropy;
+    }
+
+    /**
+     * @param in the stream to read a file, wrapped with {@link #sampleable(InputStream)}
+     * @param path the path of the file
+     * @return whether the file is worth compressing. Does not consume the stream.
+     * @throws IOException if an error occurs while reading the stream.
+     */
+    static boolean isWorthCompressing(@NonNull BufferedInputStream in, @NonNull String path) throws IOException {
+        if (isCompressedType(path)) {
+            return false;
+        }
+        byte[] sample = new byte[SAMPLE_SIZE];
+        in.mark(SAMPLE_SIZE);
+        int length = 0;
+        try {
+            int n;
+            while (length < SAMPLE_SIZE && (n = in.read(sample, length, SAMPLE_SIZE - length)) > 0) {
+                length += n;
+            }
+        } finally {
+            in.reset();
+        }
+        return entropy(sample, length) <= MAX_ENTROPY;
+    }
+
+    /**
+     * @param in the stream to read a file
+     * @return a stream to pass to {@link #isWorthCompressing(BufferedInputStream, String)}
+     */
+    @NonNull
+    static BufferedInputStream sampleable(@NonNull InputStream in) {
+        return new BufferedInputStream(in, SAMPLE_SIZE);
+    }
+
+    /**
+     * @param out the stream to the node of the target directory, inflated there with {@link java.util.zip.InflaterOutputStream}
+     *     or {@link java.util.zip.InflaterInputStream}
+     * @return the stream to write uncompressed bytes. Closing it closes {@code out}.
+     */
+    @NonNull
+    Compressor compress(@NonNull OutputStream out) {
+        return new Compressor(counting(out, compressed));
+    }
+
+    /**
+     * Reports the ratio of compression, if anything was compressed.
+     *
+     * @param listener the listener to report to
+     */
+    void report(@NonNull TaskListener listener) {
+        long c = compressed.get();
+        if (c > 0) {
+            listener.getLogger().println(Messages.CopyArtifact_CompressionStats(
+                    Functions.humanReadableByteSize(raw.get()), Functions.humanReadableByteSize(c), (double) raw.get() / c
+            ));
+        }
+    }
+
+    private static OutputStream counting(OutputStream out, AtomicLong counter) {
+        return new ProxyOutputStream(out) {
+            @Override
+            protected void beforeWrite(int n) {
+                counter.addAndGet(n);
+            }
+        };
+    }
+
+    /**
+     * Deflates a stream, sending bytes that are not worth compressing as stored blocks.
+     */
+    final class Compressor extends DeflaterOutputStream {
+        private boolean compressing = true;
+
+        private Compressor(OutputStream out) {
+            // flushes pending bytes when the level changes
+            super(out, true);
+            def.setLevel(LEVEL);
+        }
+
+        /**
+         * @param compressing whether to compress the following bytes
+         * @throws IOException if an error occurs while flushing the stream.
+         */
+        void setCompressing(boolean compressing) throws IOException {
+            if (this.compressing != compressing) {
+                flush();
+                def.setLevel(compressing ? LEVEL : Deflater.NO_COMPRESSION);
+                this.compressing = compressing;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            raw.addAndGet(len);
+            super.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.Util;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link AgentCache}
+ */
+public class AgentCacheTest {
+    private static final long TIMESTAMP = 1500000000000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void materializeStoredFiles() throws Exception {
+        File cacheDir = tmp.newFolder();
+        FilePath first = new FilePath(tmp.newFolder());
+        first.child("a.txt").write("aaa", "UTF-8");
+        first.child("a.txt").touch(TIMESTAMP);
+        String digest = first.child("a.txt").digest();
+        AgentCache cache = new AgentCache(new FilePath(cacheDir), 1024 * 1024, new DigestAlgorithm.MD5());
+        cache.store(first, Collections.singletonMap("a.txt", digest));
+
+        FilePath second = new FilePath(tmp.newFolder());
+        Set<String> hits = cache.materialize(second, Arrays.asList(
+                new AgentCache.Entry(digest, 3, FileMetadata.file("sub/same.txt", TIMESTAMP, -1)),
+                new AgentCache.Entry(digest, 3, FileMetadata.file("other.txt", TIMESTAMP + 60000, -1)),
+                new AgentCache.Entry("0123456789abcdef0123456789abcdef", 3, FileMetadata.file("missing.txt", TIMESTAMP, -1))
+        ), TaskListener.NULL);
+        assertEquals(2, hits.size());
+        assertTrue(hits.contains("sub/same.txt"));
+        assertTrue(hits.contains("other.txt"));
+        assertFalse(second.child("missing.txt").exists());
+        assertEquals("aaa", second.child("sub/same.txt").readToString());
+        assertEquals("aaa", second.child("other.txt").readToString());
+        assertEquals(TIMESTAMP + 60000, second.child("other.txt").lastModified());
+        assertEquals(TIMESTAMP, second.child("sub/same.txt").lastModified());
+        File cached = new File(cacheDir, digest.substring(0, 2) + "/" + digest);
+        if (!Functions.isWindows()) {
+            assertFalse(Files.getPosixFilePermissions(cached.toPath()).contains(PosixFilePermission.OWNER_WRITE));
+            assertTrue(Files.getPosixFilePermissions(new File(second.getRemote(), "sub/same.txt").toPath()).contains(PosixFilePermission.OWNER_WRITE));
+        }
+        // copies rather than hard links
+        assertFalse(Files.isSameFile(new File(first.getRemote(), "a.txt").toPath(), cached.toPath()));
+        assertFalse(Files.isSameFile(new File(second.getRemote(), "sub/same.txt").toPath(), cached.toPath()));
+    }
+
+    @Test
+    public void filesModifiedInPlaceDoNotModifyCache() throws Exception {
+        File cacheDir = tmp.newFolder();
+        FilePath first = new FilePath(tmp.newFolder());
+        first.child("a.txt").write("aaa", "UTF-8");
+        String digest = first.child("a.txt").digest();
+        AgentCache cache = new AgentCache(new FilePath(cacheDir), 1024 * 1024, new DigestAlgorithm.MD5());
+        cache.store(first, Collections.singletonMap("a.txt", digest));
+        Files.write(new File(first.getRemote(), "a.txt").toPath(), "bbb".getBytes("UTF-8"));
+
+        FilePath second = new FilePath(tmp.newFolder());
+        Set<String> hits = cache.materialize(second, Collections.singletonList(
+                new AgentCache.Entry(digest, 3, FileMetadata.file("a.txt", 0, -1))
+        ), TaskListener.NULL);
+        assertEquals(Collections.singleton("a.txt"), hits);
+        assertEquals("aaa", second.child("a.txt").readToString());
+    }
+
+    @Test
+    public void discardCorruptedFiles() throws Exception {
+        File cacheDir = tmp.newFolder();
+        FilePath first = new FilePath(tmp.newFolder());
+        first.child("a.txt").write("aaa", "UTF-8");
+        String digest = first.child("a.txt").digest();
+        AgentCache cache = new AgentCache(new FilePath(cacheDir), 1024 * 1024, new DigestAlgorithm.MD5());
+        cache.store(first, Collections.singletonMap("a.txt", digest));
+        // corrupted without changing the size
+        File cached = new File(cacheDir, digest.substring(0, 2) + "/" + digest);
+        assertTrue(cached.setWritable(true));
+        Files.write(cached.toPath(), "bbb".getBytes("UTF-8"));
+
+        FilePath second = new FilePath(tmp.newFolder());
+        Set<String> hits = cache.materialize(second, Collections.singletonList(
+                new AgentCache.Entry(digest, 3, FileMetadata.file("a.txt", 0, -1))
+        ), TaskListener.NULL);
+        assertTrue(hits.isEmpty());
+        assertFalse(second.child("a.txt").exists());
+        assertFalse(cached.exists());
+    }
+
+    @Test
+    public void materializeThroughPartialFiles() throws Exception {
+        File cacheDir = tmp.newFolder();
+        FilePath first = new FilePath(tmp.newFolder());
+        first.child("a.txt").write("aaa", "UTF-8");
+        String digest = first.child("a.txt").digest();
+        AgentCache cache = new AgentCache(new FilePath(cacheDir), 1024 * 1024, new DigestAlgorithm.MD5());
+        cache.store(first, Collections.singletonMap("a.txt", digest));
+
+        FilePath second = new FilePath(tmp.newFolder());
+        second.child("a.txt").write("old", "UTF-8");
+        String partial = PartialFiles.partialPath("a.txt", "cache:" + digest);
+        Set<String> hits = cache.materialize(second, Collections.singletonList(
+                new AgentCache.Entry(digest, 3, FileMetadata.file("a.txt", partial, 0, -1))
+        ), TaskListener.NULL);
+        assertEquals(Collections.singleton("a.txt"), hits);
+        assertEquals("aaa", second.child("a.txt").readToString());
+        assertFalse(second.child(partial).exists());
+
+        // a corrupted file does not replace the existing file
+        File cached = new File(cacheDir, digest.substring(0, 2) + "/" + digest);
+        assertTrue(cached.setWritable(true));
+        Files.write(cached.toPath(), "bbb".getBytes("UTF-8"));
+        second.child("a.txt").write("old", "UTF-8");
+        hits = cache.materialize(second, Collections.singletonList(
+                new AgentCache.Entry(digest, 3, FileMetadata.file("a.txt", partial, 0, -1))
+        ), TaskListener.NULL);
+        assertTrue(hits.isEmpty());
+        assertEquals("old", second.child("a.txt").readToString());
+        assertFalse(second.child(partial).exists());
+    }
+
+    @Test
+    public void algorithmsNotProvidedByPlatform() throws Exception {
+        File cacheDir = tmp.newFolder();
+        FilePath first = new FilePath(tmp.newFolder());
+        first.child("a.txt").write("aaa", "UTF-8");
+        DigestAlgorithm algorithm = new Checksum();
+        MessageDigest md = algorithm.newDigest();
+        md.update("aaa".getBytes("UTF-8"));
+        String digest = Util.toHexString(md.digest());
+        AgentCache cache = new AgentCache(new FilePath(cacheDir), 1024 * 1024, algorithm);
+        cache.store(first, Collections.singletonMap("a.txt", digest));
+
+        FilePath second = new FilePath(tmp.newFolder());
+        Set<String> hits = cache.materialize(second, Collections.singletonList(
+                new AgentCache.Entry(digest, 3, FileMetadata.file("a.txt", 0, -1))
+        ), TaskListener.NULL);
+        assertEquals(Collections.singleton("a.txt"), hits);
+        assertEquals("aaa", second.child("a.txt").readToString());
+    }
+
+    /**
+     * An algorithm not registered to the security providers, like ones provided by other plugins.
+     */
+    private static final class Checksum extends DigestAlgorithm {
+        private static final long serialVersionUID = 1L;
+
+        @NonNull
+        @Override
+        public String getName() {
+            return "CRC32";
+        }
+
+        @NonNull
+        @Override
+        public MessageDigest newDigest() {
+            return new MessageDigest("CRC32") {
+                private final CRC32 crc = new CRC32();
+
+                @Override
+                protected void engineUpdate(byte input) {
+                    crc.update(input);
+                }
+
+                @Override
+                protected void engineUpdate(byte[] input, int offset, int len) {
+                    crc.update(input, offset, len);
+                }
+
+                @Override
+                protected byte[] engineDigest() {
+                    byte[] digest = ByteBuffer.allocate(8).putLong(crc.getValue()).array();
+                    crc.reset();
+                    return digest;
+                }
+
+                @Override
+                protected void engineReset() {
+                    crc.reset();
+                }
+            };
+        }
+    }
+
+    @Test
+    public void doNotStoreFilesNotMatchingDigests() throws Exception {
+        File cacheDir = tmp.newFolder();
+        FilePath workspace = new FilePath(tmp.newFolder());
+        workspace.child("a.txt").write("aaa", "UTF-8");
+        String digest = "0123456789abcdef0123456789abcdef";
+        AgentCache cache = new AgentCache(new FilePath(cacheDir), 1024 * 1024, new DigestAlgorithm.MD5());
+        cache.store(workspace, Collections.singletonMap("a.txt", digest));
+        assertFalse(new File(cacheDir, digest.substring(0, 2) + "/" + digest).exists());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() throws Exception {
+        File cacheDir = tmp.newFolder();
+        FilePath workspace = new FilePath(tmp.newFolder());
+        AgentCache cache = new AgentCache(new FilePath(cacheDir), 25, new DigestAlgorithm.MD5());
+        Map<String, String> digests = new HashMap<>();
+        for (String name : new String[] {"a", "b", "c"}) {
+            workspace.child(name).write(name + name + name + name + name + name + name + name + name + name, "UTF-8");
+            digests.put(name, workspace.child(name).digest());
+            cache.store(workspace, Collections.singletonMap(name, digests.get(name)));
+            Thread.sleep(1100);
+        }
+        assertFalse(new File(cacheDir, digests.get("a").substring(0, 2) + "/" + digests.get("a")).exists());
+        assertTrue(new File(cacheDir, digests.get("b").substring(0, 2) + "/" + digests.get("b")).exists());
+        assertTrue(new File(cacheDir, digests.get("c").substring(0, 2) + "/" + digests.get("c")).exists());
+    }
+}
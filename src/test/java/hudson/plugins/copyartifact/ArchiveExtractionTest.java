@@ -0,0 +1,143 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import jenkins.util.VirtualFile;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link ArchiveExtraction}
+ */
+public class ArchiveExtractionTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File zip(String name, String... entries) throws Exception {
+        File f = new File(tmp.getRoot(), name);
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(f.toPath()))) {
+            for (String entry : entries) {
+                zos.putNextEntry(new ZipEntry(entry));
+                zos.write(entry.getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return f;
+    }
+
+    private ArchiveExtraction.Result extract(ArchiveExtraction extraction, File archive, File dir) throws Exception {
+        try (InputStream in = new FileInputStream(archive)) {
+            return extraction.extract(VirtualFile.forFile(archive), in, new FilePath(dir), true, TaskListener.NULL);
+        }
+    }
+
+    @Test
+    public void formats() {
+        assertEquals(ArchiveExtraction.Format.ZIP, ArchiveExtraction.formatOf("dist/app.ZIP"));
+        assertEquals(ArchiveExtraction.Format.TAR, ArchiveExtraction.formatOf("app.tar"));
+        assertEquals(ArchiveExtraction.Format.TAR_GZ, ArchiveExtraction.formatOf("app.tgz"));
+        assertNull(ArchiveExtraction.formatOf("app.jar"));
+    }
+
+    @Test
+    public void extractZipWithFilters() throws Exception {
+        File archive = zip("app.zip", "bin/run.sh", "lib/a.jar", "lib/b.jar", "docs/index.html");
+        File dir = new File(tmp.getRoot(), "out");
+        ArchiveExtraction.Result result = extract(new ArchiveExtraction("bin/**, lib/**", "**/b.jar"), archive, dir);
+        assertEquals(2, result.entries);
+        assertEquals(Util.getDigestOf(archive), result.digest);
+        assertEquals("bin/run.sh", Files.readString(new File(dir, "bin/run.sh").toPath()));
+        assertEquals("lib/a.jar", Files.readString(new File(dir, "lib/a.jar").toPath()));
+        assertFalse(new File(dir, "lib/b.jar").exists());
+        assertFalse(new File(dir, "docs").exists());
+    }
+
+    @Test
+    public void extractTarGz() throws Exception {
+        File archive = new File(tmp.getRoot(), "app.tar.gz");
+        try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(archive.toPath()));
+             TarArchiveOutputStream tar = new TarArchiveOutputStream(os)) {
+            byte[] data = "#!/bin/sh".getBytes(StandardCharsets.UTF_8);
+            TarArchiveEntry te = new TarArchiveEntry("bin/run.sh");
+            te.setSize(data.length);
+            te.setMode(0100755);
+            tar.putArchiveEntry(te);
+            tar.write(data);
+            tar.closeArchiveEntry();
+        }
+        File dir = new File(tmp.getRoot(), "out");
+        ArchiveExtraction.Result result = extract(new ArchiveExtraction(null, null), archive, dir);
+        assertEquals(1, result.entries);
+        assertEquals(Util.getDigestOf(archive), result.digest);
+        assertEquals("#!/bin/sh", Files.readString(new File(dir, "bin/run.sh").toPath()));
+    }
+
+    @Test
+    public void refuseLinksToFilesOutside() throws Exception {
+        File secret = new File(tmp.getRoot(), "secret.txt");
+        Files.writeString(secret.toPath(), "secret");
+        File archive = new File(tmp.getRoot(), "evil.tar");
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(Files.newOutputStream(archive.toPath()))) {
+            TarArchiveEntry symlink = new TarArchiveEntry("link", TarArchiveEntry.LF_SYMLINK);
+            symlink.setLinkName(secret.getAbsolutePath());
+            tar.putArchiveEntry(symlink);
+            tar.closeArchiveEntry();
+            TarArchiveEntry hardlink = new TarArchiveEntry("stolen.txt", TarArchiveEntry.LF_LINK);
+            hardlink.setLinkName("link");
+            tar.putArchiveEntry(hardlink);
+            tar.closeArchiveEntry();
+        }
+        File dir = new File(tmp.getRoot(), "out");
+        assertThrows(Exception.class, () -> extract(new ArchiveExtraction(null, null), archive, dir));
+        assertFalse(new File(dir, "stolen.txt").exists());
+    }
+
+    @Test
+    public void refuseEntriesOutside() throws Exception {
+        File archive = zip("evil.zip", "../evil.txt");
+        File dir = new File(tmp.getRoot(), "out");
+        assertThrows(Exception.class, () -> extract(new ArchiveExtraction(null, null), archive, dir));
+        assertFalse(new File(tmp.getRoot(), "evil.txt").exists());
+    }
+}
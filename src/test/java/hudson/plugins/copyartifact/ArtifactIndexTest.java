@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import hudson.Util;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import jenkins.util.VirtualFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link ArtifactIndex}
+ */
+public class ArtifactIndexTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private VirtualFile artifacts() throws Exception {
+        File dir = tmp.newFolder("artifacts");
+        for (String path : new String[] {"a.txt", "sub/b.txt", "sub/c.log", "sub/deep/d.txt"}) {
+            File f = new File(dir, path);
+            f.getParentFile().mkdirs();
+            Files.write(f.toPath(), path.getBytes("UTF-8"));
+            f.setLastModified(1_000_000L);
+        }
+        return VirtualFile.forFile(dir);
+    }
+
+    @Test
+    public void list() throws Exception {
+        VirtualFile artifacts = artifacts();
+        ArtifactIndex index = ArtifactIndex.build(artifacts, false);
+        assertEquals(4, index.size());
+        for (String[] filter : new String[][] {
+                {"**", null},
+                {"**/*.txt", null},
+                {"sub/", "**/*.log"},
+                {"a.txt, sub/*.log", null},
+                {"**", "sub/deep/"},
+        }) {
+            assertEquals(
+                    new HashSet<>(artifacts.list(filter[0], filter[1], false)),
+                    new HashSet<>(index.list(filter[0], filter[1]))
+            );
+        }
+    }
+
+    @Test
+    public void readWrite() throws Exception {
+        VirtualFile artifacts = artifacts();
+        File file = new File(tmp.getRoot(), ArtifactIndex.FILE_NAME);
+        ArtifactIndex.build(artifacts, true).write(file, true);
+        ArtifactIndex index = ArtifactIndex.read(file);
+        assertEquals(4, index.size());
+        ArtifactIndex.Entry e = index.get("sub/b.txt");
+        assertEquals("sub/b.txt".length(), e.size);
+        assertEquals(1_000_000L, e.lastModified);
+        assertNull(e.link);
+        assertEquals(Util.getDigestOf("sub/b.txt"), e.digest);
+        assertEquals(4, index.getDigests().size());
+    }
+
+    @Test
+    public void indexWithoutDigestsDoesNotReplaceExistingOne() throws Exception {
+        VirtualFile artifacts = artifacts();
+        File file = new File(tmp.getRoot(), ArtifactIndex.FILE_NAME);
+        ArtifactIndex.build(artifacts, false).write(file, false);
+        assertEquals(0, ArtifactIndex.read(file).getDigests().size());
+        ArtifactIndex.build(artifacts, true).write(file, true);
+        ArtifactIndex.build(artifacts, false).write(file, false);
+        assertEquals(4, ArtifactIndex.read(file).getDigests().size());
+        assertEquals(1, tmp.getRoot().list((dir, name) -> name.startsWith(ArtifactIndex.FILE_NAME)).length);
+    }
+
+    @Test
+    public void wrap() throws Exception {
+        VirtualFile artifacts = artifacts();
+        VirtualFile indexed = ArtifactIndex.build(artifacts, false).wrap(artifacts);
+        assertEquals(Arrays.asList("sub/c.log"), indexed.list("**/*.log", null, false));
+        // attributes are answered from the index once built.
+        assertTrue(new File(artifacts.child("sub/b.txt").toURI()).delete());
+        VirtualFile f = indexed.child("sub/b.txt");
+        assertTrue(f.exists());
+        assertEquals("sub/b.txt".length(), f.length());
+        assertEquals(1_000_000L, f.lastModified());
+    }
+}
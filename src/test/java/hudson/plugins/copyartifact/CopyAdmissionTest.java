@@ -0,0 +1,132 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Timer;
+import hudson.ExtensionList;
+import hudson.model.TaskListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Tests for {@link CopyAdmission}
+ */
+public class CopyAdmissionTest {
+    @Rule
+    public JenkinsRule rule = new JenkinsRule();
+
+    private final List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+    private Thread queue(String job) throws Exception {
+        int depth = CopyAdmission.get().getQueueDepth();
+        Thread t = new Thread(() -> {
+            try (CopyAdmission.Slot slot = CopyAdmission.get().admit(job, TaskListener.NULL)) {
+                order.add(job);
+            } catch (InterruptedException e) {
+                order.add("interrupted " + job);
+            }
+        });
+        t.start();
+        while (CopyAdmission.get().getQueueDepth() == depth) {
+            Thread.sleep(10);
+        }
+        return t;
+    }
+
+    @Test
+    public void fairnessAndPriorities() throws Exception {
+        CopyArtifactConfiguration config = CopyArtifactConfiguration.get();
+        config.setMaxConcurrentCopies(1);
+        config.setPriorityJobs("release/.*\n.*-promotion");
+        assertTrue(config.isPriorityJob("release/main"));
+        assertFalse(config.isPriorityJob("pr-42"));
+
+        List<Thread> threads = new ArrayList<>();
+        try (CopyAdmission.Slot slot = CopyAdmission.get().admit("first", TaskListener.NULL)) {
+            assertEquals(1, CopyAdmission.get().getRunning());
+            threads.add(queue("noisy"));
+            threads.add(queue("noisy"));
+            threads.add(queue("noisy"));
+            threads.add(queue("other"));
+            threads.add(queue("release/main"));
+            assertEquals(5, CopyAdmission.get().getQueueDepth());
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(List.of("release/main", "noisy", "other", "noisy", "noisy"), order);
+        assertEquals(0, CopyAdmission.get().getRunning());
+        assertEquals(0, CopyAdmission.get().getQueueDepth());
+    }
+
+    @Test
+    public void interruptedWhileWaiting() throws Exception {
+        CopyArtifactConfiguration.get().setMaxConcurrentCopies(1);
+        try (CopyAdmission.Slot slot = CopyAdmission.get().admit("first", TaskListener.NULL)) {
+            Thread t = queue("waiting");
+            t.interrupt();
+            t.join();
+            assertEquals(List.of("interrupted waiting"), order);
+            assertEquals(0, CopyAdmission.get().getQueueDepth());
+        }
+        assertEquals(0, CopyAdmission.get().getRunning());
+    }
+
+    @Test
+    public void metrics() throws Exception {
+        CopyArtifactConfiguration.get().setMaxConcurrentCopies(1);
+        Map<String, Metric> metrics = ExtensionList.lookupSingleton(CopyAdmissionMetrics.class).getMetricSet().getMetrics();
+        Gauge<?> running = (Gauge<?>) metrics.get("copyartifact.admission.running");
+        Gauge<?> queued = (Gauge<?>) metrics.get("copyartifact.admission.queued");
+        Timer wait = (Timer) metrics.get("copyartifact.admission.wait");
+        Thread t;
+        try (CopyAdmission.Slot slot = CopyAdmission.get().admit("first", TaskListener.NULL)) {
+            t = queue("waiting");
+            assertEquals(1, running.getValue());
+            assertEquals(1, queued.getValue());
+        }
+        t.join();
+        assertEquals(0, running.getValue());
+        assertEquals(0, queued.getValue());
+        assertEquals(2, wait.getCount());
+    }
+
+    @Test
+    public void unlimited() throws Exception {
+        try (CopyAdmission.Slot slot = CopyAdmission.get().admit("first", TaskListener.NULL)) {
+            assertEquals(0, CopyAdmission.get().getRunning());
+        }
+    }
+}
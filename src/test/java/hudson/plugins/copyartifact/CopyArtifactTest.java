@@ -26,6 +26,7 @@ package hudson.plugins.copyartifact;
 import hudson.FilePath;
 import hudson.Functions;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.cli.CLICommandInvoker;
 import hudson.matrix.Axis;
 import hudson.matrix.AxisList;
@@ -57,6 +58,7 @@ import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.StringParameterDefinition;
 import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
 import hudson.model.User;
 import hudson.plugins.copyartifact.testutils.CopyArtifactJenkinsRule;
 import hudson.plugins.copyartifact.testutils.CopyArtifactUtil;
@@ -78,6 +80,9 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -88,6 +93,7 @@ import java.util.concurrent.TimeUnit;
 import jenkins.model.ArtifactManagerConfiguration;
 import jenkins.model.Jenkins;
 import jenkins.security.QueueItemAuthenticatorConfiguration;
+import jenkins.util.VirtualFile;
 
 import org.acegisecurity.Authentication;
 import org.acegisecurity.context.SecurityContext;
@@ -2528,4 +2534,548 @@ public class CopyArtifactTest {
         );
         rule.assertBuildStatus(Result.FAILURE, dest.scheduleBuild2(0));
     }
+
+    private static File waitForArtifactIndex(Run<?, ?> build) throws InterruptedException {
+        File file = new File(build.getRootDir(), ArtifactIndex.FILE_NAME);
+        for (int i = 0; i < 100 && !file.isFile(); ++i) {
+            Thread.sleep(100);
+        }
+        return file;
+    }
+
+    private FreeStyleProject createManyArtifactsProject(final int count) throws IOException {
+        FreeStyleProject p = rule.createFreeStyleProject();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                for (int i = 0; i < count; ++i) {
+                    build.getWorkspace().child(String.format("dir%d/file%d.txt", i % 5, i)).write("content" + i, "UTF-8");
+                }
+                return true;
+            }
+        });
+        p.getPublishersList().add(new ArtifactArchiver("**"));
+        return p;
+    }
+
+    @Test
+    public void testParallelCopy() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(50);
+        rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        CopyArtifact ca = p.getBuildersList().get(CopyArtifact.class);
+        ca.setParallelism(4);
+        p.setAssignedNode(rule.createOnlineSlave());
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 50 artifacts", b);
+        rule.assertLogContains("Copy took", b);
+        for (int i = 0; i < 50; ++i) {
+            FilePath f = b.getWorkspace().child(String.format("dir%d/file%d.txt", i % 5, i));
+            assertEquals("content" + i, f.readToString());
+            assertEquals(f.digest(), b.getAction(Fingerprinter.FingerprintAction.class).getRecords().get(f.getName()));
+        }
+    }
+
+    @Test
+    public void testParallelStreamsRestoreMetadata() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(600);
+        FreeStyleBuild s = rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, false);
+        p.getBuildersList().get(CopyArtifact.class).setParallelism(8);
+        p.setAssignedNode(rule.createOnlineSlave());
+        // streamed from the controller rather than copied by the node
+        CopyOperation.LOCAL_COPY = false;
+        try {
+            FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+            rule.assertLogContains("Copied 600 artifacts", b);
+            VirtualFile artifacts = s.getArtifactManager().root();
+            for (int i = 0; i < 600; ++i) {
+                String path = String.format("dir%d/file%d.txt", i % 5, i);
+                FilePath f = b.getWorkspace().child(path);
+                assertEquals("content" + i, f.readToString());
+                assertEquals(path, artifacts.child(path).lastModified(), f.lastModified());
+            }
+        } finally {
+            CopyOperation.LOCAL_COPY = true;
+        }
+    }
+
+    @Test
+    public void testParallelCopyWithFlattenCollisions() throws Exception {
+        FreeStyleProject other = rule.createFreeStyleProject();
+        other.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                for (int i = 0; i < 20; ++i) {
+                    build.getWorkspace().child(String.format("dir%d/same.txt", i)).write(StringUtils.repeat("content" + i, 10000), "UTF-8");
+                }
+                return true;
+            }
+        });
+        other.getPublishersList().add(new ArtifactArchiver("**"));
+        rule.buildAndAssertSuccess(other);
+        DumbSlave agent = rule.createOnlineSlave();
+
+        FreeStyleProject sequential = createProject(other.getName(), null, "", "", false, true, false, false);
+        sequential.setAssignedNode(agent);
+        String expected = rule.buildAndAssertSuccess(sequential).getWorkspace().child("same.txt").readToString();
+
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, true, false, false);
+        p.getBuildersList().get(CopyArtifact.class).setParallelism(4);
+        p.setAssignedNode(agent);
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 20 artifacts", b);
+        assertEquals(expected, b.getWorkspace().child("same.txt").readToString());
+        assertEquals(1, b.getWorkspace().list().size());
+    }
+
+    @Test
+    public void testParallelismIsCappedByGlobalConfiguration() throws Exception {
+        CopyArtifactConfiguration.get().setMaxParallelism(2);
+        assertEquals(2, CopyArtifactConfiguration.capParallelism(10));
+        assertEquals(1, CopyArtifactConfiguration.capParallelism(0));
+        assertEquals(1, new CopyArtifact("foo").getParallelism());
+    }
+
+    @Test
+    public void testSingleStreamTransfer() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(20);
+        FreeStyleBuild s = rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        p.getBuildersList().get(CopyArtifact.class).setTransferMode(CopyArtifact.TransferMode.SingleStream);
+        p.setAssignedNode(rule.createOnlineSlave());
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 20 artifacts", b);
+        for (int i = 0; i < 20; ++i) {
+            String path = String.format("dir%d/file%d.txt", i % 5, i);
+            FilePath f = b.getWorkspace().child(path);
+            assertEquals("content" + i, f.readToString());
+            assertEquals(new FilePath(s.getArtifactsDir()).child(path).lastModified() / 1000, f.lastModified() / 1000);
+            Fingerprint fp = rule.jenkins.getFingerprintMap().get(f.digest());
+            assertNotNull(fp);
+            assertSame(s, fp.getOriginal().getRun());
+        }
+    }
+
+    @Test
+    public void testSingleStreamTransferWithSymlinksAndModes() throws Exception {
+        assumeThat(Functions.isWindows(), not(true));
+        FreeStyleProject p1 = rule.createFreeStyleProject();
+        p1.getBuildersList().add(new TestBuilder() {
+            @Override public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                build.getWorkspace().child("plain").write("text", null);
+                build.getWorkspace().child("exec.sh").write("#!/bin/sh", null);
+                build.getWorkspace().child("exec.sh").chmod(0755);
+                build.getWorkspace().child("dir/link1").getParent().mkdirs();
+                build.getWorkspace().child("dir/link1").symlinkTo("../plain", listener);
+                return true;
+            }
+        });
+        p1.getPublishersList().add(new ArtifactArchiver("**"));
+        rule.buildAndAssertSuccess(p1);
+        FreeStyleProject p2 = rule.createFreeStyleProject();
+        CopyArtifact ca = CopyArtifactUtil.createCopyArtifact(p1.getName(), null, new StatusBuildSelector(true), null, "", false, false, true);
+        ca.setTransferMode(CopyArtifact.TransferMode.SingleStream);
+        p2.getBuildersList().add(ca);
+        p2.setAssignedNode(rule.createOnlineSlave());
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p2);
+        FilePath ws = b.getWorkspace();
+        assertEquals("text", ws.child("plain").readToString());
+        assertEquals(0755, ws.child("exec.sh").mode() & 0777);
+        assertEquals("../plain", ws.child("dir/link1").readLink());
+    }
+
+    @Test
+    public void testSingleStreamTransferWithCompression() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(20);
+        rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        CopyArtifact ca = p.getBuildersList().get(CopyArtifact.class);
+        ca.setTransferMode(CopyArtifact.TransferMode.SingleStream);
+        ca.setCompression(true);
+        p.setAssignedNode(rule.createOnlineSlave());
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 20 artifacts", b);
+        rule.assertLogContains("sent to the agent", b);
+        for (int i = 0; i < 20; ++i) {
+            FilePath f = b.getWorkspace().child(String.format("dir%d/file%d.txt", i % 5, i));
+            assertEquals("content" + i, f.readToString());
+            assertEquals(f.digest(), b.getAction(Fingerprinter.FingerprintAction.class).getRecords().get(f.getName()));
+        }
+    }
+
+    @Test
+    public void testSyncSkipsUnchangedFiles() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(20);
+        rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        CopyArtifact ca = p.getBuildersList().get(CopyArtifact.class);
+        ca.setSync(true);
+        p.setAssignedNode(rule.createOnlineSlave());
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 20 artifacts", b);
+        rule.assertLogNotContains("unchanged", b);
+
+        FilePath changed = b.getWorkspace().child("dir1/file1.txt");
+        changed.write("modified", null);
+        FilePath tampered = b.getWorkspace().child("dir2/file2.txt");
+        long lastModified = tampered.lastModified();
+        tampered.write("CONTENT2", null);
+        tampered.touch(lastModified);
+
+        b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 20 artifacts", b);
+        rule.assertLogContains("Skipped 19 unchanged files", b);
+        assertEquals("content1", changed.readToString());
+        assertEquals("CONTENT2", tampered.readToString());
+        assertNotNull(b.getAction(Fingerprinter.FingerprintAction.class));
+        assertEquals(20, b.getAction(Fingerprinter.FingerprintAction.class).getRecords().size());
+
+        ca.setSyncVerifyDigest(true);
+        b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Skipped 19 unchanged files", b);
+        assertEquals("content2", tampered.readToString());
+    }
+
+    @Test
+    public void testKeepCompletedPartialFile() throws Exception {
+        FreeStyleProject other = rule.createFreeStyleProject();
+        other.getBuildersList().add(new TestBuilder() {
+            @Override public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                build.getWorkspace().child("sub/a.txt").write("hello", null);
+                return true;
+            }
+        });
+        other.getPublishersList().add(new ArtifactArchiver("**"));
+        FreeStyleBuild s = rule.buildAndAssertSuccess(other);
+        VirtualFile artifact = s.getArtifactManager().root().child("sub/a.txt");
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        // left by an interrupted copy before renamed
+        FilePath partial = rule.jenkins.getWorkspaceFor(p).child(
+                PartialFiles.partialPath("sub/a.txt", "sub/a.txt:" + artifact.length() + ":" + artifact.lastModified()));
+        partial.write("hello", null);
+
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Kept sub/a.txt completely copied by the interrupted attempt", b);
+        assertEquals("hello", b.getWorkspace().child("sub/a.txt").readToString());
+        assertFalse(partial.exists());
+        assertEquals(Util.getDigestOf("hello"), b.getAction(Fingerprinter.FingerprintAction.class).getRecords().get("a.txt"));
+    }
+
+    @Test
+    public void testBackgroundCopyNotWaited() throws Exception {
+        FreeStyleProject other = createArtifactProject();
+        rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        p.getBuildersList().get(CopyArtifact.class).setBackground(true);
+        // waited for when the build steps end
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("in the background", b);
+        // the log of the copy itself
+        rule.assertLogContains("build number 1", b);
+        assertFile(true, "foo.txt", b);
+
+        p.getBuildersList().get(CopyArtifact.class).setFilter("missing.txt");
+        b = rule.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0));
+        rule.assertLogContains("Failed to copy artifacts from " + other.getName() + " with filter: missing.txt", b);
+    }
+
+    @Test
+    public void testRemoveStaleFiles() throws Exception {
+        FreeStyleProject other = rule.createFreeStyleProject();
+        other.getBuildersList().add(new TestBuilder() {
+            @Override public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                build.getWorkspace().deleteContents();
+                build.getWorkspace().child("kept.txt").write("kept", null);
+                build.getWorkspace().child("filtered.txt").write("filtered", null);
+                if (build.getNumber() == 1) {
+                    build.getWorkspace().child("sub/stale.txt").write("stale", null);
+                    build.getWorkspace().child("sub/modified.txt").write("modified", null);
+                    build.getWorkspace().child("sub/stale-link").symlinkTo("stale.txt", listener);
+                    build.getWorkspace().child("sub/retargeted-link").symlinkTo("stale.txt", listener);
+                }
+                return true;
+            }
+        });
+        other.getPublishersList().add(new ArtifactArchiver("**"));
+        rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        CopyArtifact ca = p.getBuildersList().get(CopyArtifact.class);
+        ca.setRemoveStaleFiles(true);
+        p.setAssignedNode(rule.createOnlineSlave());
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        assertTrue(b.getWorkspace().child("sub/stale.txt").exists());
+        assertTrue(b.getWorkspace().child(".copyartifact-manifest").exists());
+        FilePath own = b.getWorkspace().child("own.txt");
+        own.write("own", null);
+        FilePath modified = b.getWorkspace().child("sub/modified.txt");
+        modified.write("changed by the build", null);
+        FilePath retargeted = b.getWorkspace().child("sub/retargeted-link");
+        assertEquals("stale.txt", retargeted.readLink());
+        retargeted.delete();
+        retargeted.symlinkTo("../own.txt", TaskListener.NULL);
+
+        rule.buildAndAssertSuccess(other);
+        b = rule.buildAndAssertSuccess(p);
+        // the file and the link to it
+        rule.assertLogContains("Removed 2 files copied by the previous copy", b);
+        assertFalse(b.getWorkspace().child("sub/stale.txt").exists());
+        assertFalse(Files.exists(Paths.get(b.getWorkspace().getRemote(), "sub", "stale-link"), LinkOption.NOFOLLOW_LINKS));
+        assertEquals("kept", b.getWorkspace().child("kept.txt").readToString());
+        // files not copied by this step, or modified since, are left alone
+        assertEquals("own", own.readToString());
+        assertEquals("changed by the build", modified.readToString());
+        assertEquals("../own.txt", retargeted.readLink());
+
+        // no longer selected after the filter changed
+        ca.setFilter("kept.txt");
+        b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Removed 1 file copied by the previous copy", b);
+        assertFalse(b.getWorkspace().child("filtered.txt").exists());
+        assertEquals("kept", b.getWorkspace().child("kept.txt").readToString());
+        assertEquals("changed by the build", modified.readToString());
+    }
+
+    @Test
+    public void testAgentCache() throws Exception {
+        CopyArtifactConfiguration.get().setAgentCacheSize(10);
+        FreeStyleProject other = createManyArtifactsProject(10);
+        // files are looked up with digests computed when the build completed
+        waitForArtifactIndex(rule.buildAndAssertSuccess(other));
+        DumbSlave agent = rule.createOnlineSlave();
+        FreeStyleProject p1 = createProject(other.getName(), null, "", "", false, false, false, true);
+        p1.setAssignedNode(agent);
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p1);
+        rule.assertLogContains("Copied 10 artifacts", b);
+        rule.assertLogNotContains("artifact cache", b);
+
+        FreeStyleProject p2 = createProject(other.getName(), null, "", "", false, false, false, true);
+        p2.setAssignedNode(agent);
+        b = rule.buildAndAssertSuccess(p2);
+        rule.assertLogContains("Copied 10 artifacts", b);
+        rule.assertLogContains("Took 10 files", b);
+        for (int i = 0; i < 10; ++i) {
+            assertEquals("content" + i, b.getWorkspace().child(String.format("dir%d/file%d.txt", i % 5, i)).readToString());
+        }
+        assertEquals(10, b.getAction(Fingerprinter.FingerprintAction.class).getRecords().size());
+    }
+
+    @Test
+    public void testFingerprintRecordsAreNotTrusted() throws Exception {
+        FreeStyleProject other = rule.createFreeStyleProject();
+        other.getBuildersList().add(new TestBuilder() {
+            @Override public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                build.getWorkspace().child("top.txt").write("top", null);
+                build.getWorkspace().child("sub/dup.txt").write("sub/dup", null);
+                return true;
+            }
+        });
+        other.getPublishersList().add(new ArtifactArchiver("**"));
+        FreeStyleBuild s = rule.buildAndAssertSuccess(other);
+        // e.g. files copied into the build and regenerated since
+        Map<String, String> records = new HashMap<>();
+        records.put("top.txt", "0123456789abcdef0123456789abcdef");
+        records.put("sub/dup.txt", "fedcba9876543210fedcba9876543210");
+        s.addAction(new Fingerprinter.FingerprintAction(s, records));
+
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        Map<String, String> copied = b.getAction(Fingerprinter.FingerprintAction.class).getRecords();
+        assertEquals(Util.getDigestOf("top"), copied.get("top.txt"));
+        assertEquals(Util.getDigestOf("sub/dup"), copied.get("dup.txt"));
+        assertEquals("top", b.getWorkspace().child("top.txt").readToString());
+    }
+
+    @Test
+    public void testDuplicatesAreTransferredOnce() throws Exception {
+        FreeStyleProject other = rule.createFreeStyleProject();
+        other.getBuildersList().add(new TestBuilder() {
+            @Override public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                build.getWorkspace().child("a/lib.jar").write("lib", null);
+                build.getWorkspace().child("b/lib.jar").write("lib", null);
+                build.getWorkspace().child("c/renamed.jar").write("lib", null);
+                build.getWorkspace().child("d/other.jar").write("other", null);
+                return true;
+            }
+        });
+        ArtifactArchiver archiver = new ArtifactArchiver("**");
+        archiver.setFingerprint(true);
+        other.getPublishersList().add(archiver);
+        // duplicates are found by digests computed when the build completed
+        waitForArtifactIndex(rule.buildAndAssertSuccess(other));
+
+        for (CopyArtifact.TransferMode mode : CopyArtifact.TransferMode.values()) {
+            FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+            p.getBuildersList().get(CopyArtifact.class).setTransferMode(mode);
+            p.setAssignedNode(rule.createOnlineSlave());
+            FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+            rule.assertLogContains("Copied 4 artifacts", b);
+            rule.assertLogContains("Copied 2 duplicate files", b);
+            for (String path : new String[] {"a/lib.jar", "b/lib.jar", "c/renamed.jar"}) {
+                assertEquals("lib", b.getWorkspace().child(path).readToString());
+            }
+            assertEquals("other", b.getWorkspace().child("d/other.jar").readToString());
+            assertEquals(Util.getDigestOf("lib"), b.getAction(Fingerprinter.FingerprintAction.class).getRecords().get("renamed.jar"));
+        }
+
+        // a file flattened into the same path as another one is not used to copy its duplicates
+        FreeStyleProject flattened = rule.createFreeStyleProject();
+        flattened.getBuildersList().add(new TestBuilder() {
+            @Override public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                build.getWorkspace().child("a/x.jar").write("lib", null);
+                build.getWorkspace().child("b/y.jar").write("lib", null);
+                build.getWorkspace().child("c/x.jar").write("other", null);
+                return true;
+            }
+        });
+        ArtifactArchiver flattenedArchiver = new ArtifactArchiver("**");
+        flattenedArchiver.setFingerprint(true);
+        flattened.getPublishersList().add(flattenedArchiver);
+        waitForArtifactIndex(rule.buildAndAssertSuccess(flattened));
+        for (CopyArtifact.TransferMode mode : CopyArtifact.TransferMode.values()) {
+            FreeStyleProject p = createProject(flattened.getName(), null, "", "", false, true, false, true);
+            p.getBuildersList().get(CopyArtifact.class).setTransferMode(mode);
+            p.setAssignedNode(rule.createOnlineSlave());
+            FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+            rule.assertLogContains("Copied 3 artifacts", b);
+            rule.assertLogNotContains("duplicate files", b);
+            assertEquals("lib", b.getWorkspace().child("y.jar").readToString());
+            assertEquals(Util.getDigestOf("lib"), b.getAction(Fingerprinter.FingerprintAction.class).getRecords().get("y.jar"));
+        }
+    }
+
+    @Test
+    public void testExtractArchives() throws Exception {
+        FreeStyleProject other = rule.createFreeStyleProject();
+        other.getBuildersList().add(new TestBuilder() {
+            @Override public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
+                FilePath src = build.getWorkspace().child("src");
+                src.child("bin/run.sh").write("run", null);
+                src.child("docs/index.html").write("docs", null);
+                src.zip(build.getWorkspace().child("dist/app.zip"));
+                build.getWorkspace().child("dist/notes.txt").write("notes", null);
+                return true;
+            }
+        });
+        other.getPublishersList().add(new ArtifactArchiver("dist/**"));
+        rule.buildAndAssertSuccess(other);
+
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        CopyArtifact ca = p.getBuildersList().get(CopyArtifact.class);
+        ca.setExtractArchives("**/*.zip");
+        ca.setExtractExcludes("*/docs/**");
+        p.setAssignedNode(rule.createOnlineSlave());
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Extracted 1 entry from dist/app.zip", b);
+        FilePath dist = b.getWorkspace().child("dist");
+        assertEquals("run", dist.child("src/bin/run.sh").readToString());
+        assertFalse(dist.child("src/docs/index.html").exists());
+        assertFalse(dist.child("app.zip").exists());
+        assertEquals("notes", dist.child("notes.txt").readToString());
+    }
+
+    @Test
+    public void testFingerprintIncludes() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(10);
+        rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        CopyArtifact ca = p.getBuildersList().get(CopyArtifact.class);
+        ca.setFingerprintIncludes("dir0/");
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 10 artifacts", b);
+        Map<String, String> records = b.getAction(Fingerprinter.FingerprintAction.class).getRecords();
+        assertEquals(2, records.size());
+        assertEquals(b.getWorkspace().child("dir0/file5.txt").digest(), records.get("file5.txt"));
+    }
+
+    @Test
+    public void testArtifactIndex() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(10);
+        FreeStyleBuild s = rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        rule.assertLogContains("Copied 10 artifacts", rule.buildAndAssertSuccess(p));
+        assertTrue(new File(s.getRootDir(), ArtifactIndex.FILE_NAME).isFile());
+        FreeStyleProject q = createProject(other.getName(), null, "dir1/", "", false, false, false, true);
+        FreeStyleBuild b = rule.buildAndAssertSuccess(q);
+        rule.assertLogContains("Copied 2 artifacts", b);
+        assertEquals("content6", b.getWorkspace().child("dir1/file6.txt").readToString());
+    }
+
+    @Test
+    public void testArtifactIndexAtCompletion() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(10);
+        FreeStyleBuild s = rule.buildAndAssertSuccess(other);
+        File file = waitForArtifactIndex(s);
+        assertEquals(10, ArtifactIndex.read(file).getDigests().size());
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        Map<String, String> records = b.getAction(Fingerprinter.FingerprintAction.class).getRecords();
+        assertEquals(b.getWorkspace().child("dir3/file8.txt").digest(), records.get("file8.txt"));
+    }
+
+    @Test
+    public void testArtifactIndexAtCompletionDisabled() throws Exception {
+        CopyArtifactConfiguration.get().setIndexOnCompletion(false);
+        FreeStyleProject other = createManyArtifactsProject(10);
+        FreeStyleBuild s = rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 10 artifacts", b);
+        // indexed without digests by the copy
+        File file = new File(s.getRootDir(), ArtifactIndex.FILE_NAME);
+        assertTrue(file.isFile());
+        assertEquals(0, ArtifactIndex.read(file).getDigests().size());
+    }
+
+    @Test
+    public void testPackInto() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(10);
+        rule.buildAndAssertSuccess(other);
+        FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+        CopyArtifact ca = p.getBuildersList().get(CopyArtifact.class);
+        ca.setPackInto("out/artifacts.zip");
+        p.setAssignedNode(rule.createOnlineSlave());
+        FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+        rule.assertLogContains("Copied 10 artifacts", b);
+        FilePath ws = b.getWorkspace();
+        assertFalse(ws.child("dir0").exists());
+        ws.child("out/artifacts.zip").unzip(ws.child("unpacked"));
+        for (int i = 0; i < 10; ++i) {
+            FilePath f = ws.child(String.format("unpacked/dir%d/file%d.txt", i % 5, i));
+            assertEquals("content" + i, f.readToString());
+            assertEquals(f.digest(), b.getAction(Fingerprinter.FingerprintAction.class).getRecords().get(f.getName()));
+        }
+    }
+
+    @Test
+    public void testAgentCacheWithOtherDigestAlgorithm() throws Exception {
+        FreeStyleProject other = createManyArtifactsProject(5);
+        DumbSlave agent = rule.createOnlineSlave();
+        // builds completed before the cache was enabled have no digests to look files up with
+        waitForArtifactIndex(rule.buildAndAssertSuccess(other));
+        CopyArtifactConfiguration.get().setAgentCacheSize(10);
+        CopyArtifactConfiguration.get().setCacheDigestAlgorithm("SHA-256");
+        for (int i = 0; i < 2; ++i) {
+            FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+            p.setAssignedNode(agent);
+            FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+            rule.assertLogContains("Copied 5 artifacts", b);
+            rule.assertLogNotContains("from the artifact cache", b);
+        }
+
+        FreeStyleBuild s = rule.buildAndAssertSuccess(other);
+        ArtifactIndex index = ArtifactIndex.read(waitForArtifactIndex(s));
+        VirtualFile artifacts = s.getArtifactManager().root();
+        assertEquals(5, ArtifactIndex.digestsOf(index.wrap(artifacts), new DigestAlgorithm.SHA256()).size());
+        for (int i = 0; i < 2; ++i) {
+            FreeStyleProject p = createProject(other.getName(), null, "", "", false, false, false, true);
+            p.setAssignedNode(agent);
+            FreeStyleBuild b = rule.buildAndAssertSuccess(p);
+            rule.assertLogContains("Copied 5 artifacts", b);
+            if (i == 1) {
+                rule.assertLogContains("Took 5 files", b);
+            }
+        }
+        assertTrue(agent.getRootPath().child("caches/copyartifact/sha-256").isDirectory());
+    }
 }
@@ -30,6 +30,7 @@ import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.ParametersAction;
 import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Result;
 import hudson.model.StringParameterDefinition;
 import hudson.model.StringParameterValue;
 import hudson.plugins.copyartifact.testutils.CopyArtifactJenkinsRule;
@@ -136,6 +137,45 @@ public class CopyArtifactWorkflowTest {
         jenkinsRule.assertLogContains("jenkins-ds-1", jenkinsRule.assertBuildStatusSuccess(us.scheduleBuild2(0)));
     }
 
+    @Test
+    public void backgroundCopy() throws Exception {
+        WorkflowJob src = jenkinsRule.createWorkflow("src", "writeFile text: 'hello', file: 'hello.txt'; archive includes: 'hello.txt'");
+        jenkinsRule.assertBuildStatusSuccess(src.scheduleBuild2(0));
+        WorkflowJob copier = jenkinsRule.createWorkflow("copier",
+                "copyArtifacts(projectName: 'src', background: true); echo 'in the meantime'; "
+                + "waitForCopyArtifacts(projectName: 'src'); echo readFile('hello.txt')");
+        WorkflowRun b = jenkinsRule.assertBuildStatusSuccess(copier.scheduleBuild2(0));
+        jenkinsRule.assertLogContains("Copying artifacts from src in the background", b);
+        jenkinsRule.assertLogContains("Waited for 1 background copy", b);
+        // the log of the copy itself
+        jenkinsRule.assertLogContains("Copied 1 artifact from \"src\" build number 1", b);
+        jenkinsRule.assertLogContains("hello", b);
+    }
+
+    @Test
+    public void backgroundCopyFailure() throws Exception {
+        WorkflowJob src = jenkinsRule.createWorkflow("src", "writeFile text: 'hello', file: 'hello.txt'; archive includes: 'hello.txt'");
+        jenkinsRule.assertBuildStatusSuccess(src.scheduleBuild2(0));
+        WorkflowJob copier = jenkinsRule.createWorkflow("copier",
+                "copyArtifacts(projectName: 'src', filter: 'missing.txt', background: true); waitForCopyArtifacts()");
+        WorkflowRun b = jenkinsRule.assertBuildStatus(Result.FAILURE, copier.scheduleBuild2(0));
+        jenkinsRule.assertLogContains("Failed to copy artifacts from src with filter: missing.txt", b);
+    }
+
+    @Test
+    public void backgroundCopyNotWaitedFails() throws Exception {
+        FreeStyleProject src = jenkinsRule.createFreeStyleProject("src");
+        // takes some seconds to copy with the bandwidth limited to 1MB/s.
+        src.getBuildersList().add(new FileWriteBuilder("large.bin", new String(new char[8 * 1024 * 1024]).replace('\0', 'x')));
+        src.getPublishersList().add(new ArtifactArchiver("large.bin"));
+        jenkinsRule.assertBuildStatusSuccess(src.scheduleBuild2(0));
+        CopyArtifactConfiguration.get().setMaxCopyBandwidth(1);
+        WorkflowJob copier = jenkinsRule.createWorkflow("copier",
+                "node { copyArtifacts(projectName: 'src', background: true) }");
+        WorkflowRun b = jenkinsRule.assertBuildStatus(Result.FAILURE, copier.scheduleBuild2(0));
+        jenkinsRule.assertLogContains("Cancelled the copy of artifacts from src in the background", b);
+    }
+
     private void assertArtifactInArchive(WorkflowRun b) {
         List<WorkflowRun.Artifact> artifacts = b.getArtifacts();
         Assert.assertEquals(1, artifacts.size());
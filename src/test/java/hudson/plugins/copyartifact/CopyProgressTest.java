@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Tests for {@link CopyProgress}
+ */
+public class CopyProgressTest {
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    private String log() {
+        return log.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void reportsProgressAtIntervals() throws Exception {
+        CopyProgress progress = new CopyProgress(new StreamTaskListener(log, StandardCharsets.UTF_8), 0);
+        progress.start(3);
+        progress.copied(1024);
+        Thread.sleep(1);
+        progress.copied(1024);
+        Thread.sleep(1);
+        progress.copied(1024);
+        progress.transferred();
+        assertEquals(3, progress.getFiles());
+        assertEquals(3072, progress.getBytes());
+        assertTrue(log(), log().contains("Copied 1 of 3 files"));
+        assertTrue(log(), log().contains("Copied 2 of 3 files"));
+        // the last file is reported by the summary.
+        assertFalse(log(), log().contains("Copied 3 of 3 files"));
+    }
+
+    @Test
+    public void quietForShortCopies() throws Exception {
+        CopyProgress progress = new CopyProgress(new StreamTaskListener(log, StandardCharsets.UTF_8));
+        progress.start(100);
+        for (int i = 0; i < 100; ++i) {
+            progress.copied(10);
+        }
+        progress.transferred();
+        assertEquals(0, log.size());
+        progress.hashed(5_000_000);
+        progress.recorded(1_000_000);
+        progress.summarize();
+        assertTrue(log(), log().contains("Copy took"));
+        assertTrue(log(), log().contains("recording fingerprints"));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MemoryAssert;
+
+/**
+ * Tests for {@link CopyThrottle}
+ */
+public class CopyThrottleTest {
+    @Rule
+    public JenkinsRule rule = new JenkinsRule();
+
+    @Test
+    public void tokenBucket() {
+        CopyThrottle.TokenBucket bucket = new CopyThrottle.TokenBucket(1000);
+        assertEquals(0, bucket.reserve(1000));
+        long wait = bucket.reserve(500);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(400) && wait <= TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    public void throttledStream() throws Exception {
+        CopyThrottle.Session session = new CopyThrottle.Session(new CopyThrottle.TokenBucket(10000), null, null);
+        long start = System.nanoTime();
+        try (InputStream in = session.throttle(new ByteArrayInputStream(new byte[15000]))) {
+            assertEquals(15000, IOUtils.toByteArray(in).length);
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(400));
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        session.report(new StreamTaskListener(log, StandardCharsets.UTF_8));
+        assertTrue(log.toString(StandardCharsets.UTF_8).contains("for the copy bandwidth limit"));
+    }
+
+    @Test
+    public void openFiles() throws Exception {
+        Semaphore semaphore = new Semaphore(1);
+        CopyThrottle.Session session = new CopyThrottle.Session(null, null, semaphore);
+        try (CopyThrottle.OpenFile file = session.open()) {
+            assertFalse(semaphore.tryAcquire());
+        }
+        assertTrue(semaphore.tryAcquire());
+    }
+
+    @Test
+    public void idleJobBucketsAreDropped() throws Exception {
+        CopyArtifactConfiguration.get().setMaxCopyBandwidthPerJob(1);
+        CopyThrottle.Session first = CopyThrottle.start("job");
+        CopyThrottle.Session second = CopyThrottle.start("job");
+        assertTrue(CopyThrottle.hasBucket("job"));
+        WeakReference<CopyThrottle.Session> firstRef = new WeakReference<>(first);
+        first = null;
+        MemoryAssert.assertGC(firstRef, false);
+        // still used by the other copy
+        assertTrue(CopyThrottle.hasBucket("job"));
+        WeakReference<CopyThrottle.Session> secondRef = new WeakReference<>(second);
+        second = null;
+        MemoryAssert.assertGC(secondRef, false);
+        assertFalse(CopyThrottle.hasBucket("job"));
+    }
+
+    @Test
+    public void unlimited() throws Exception {
+        InputStream in = new ByteArrayInputStream(new byte[0]);
+        assertTrue(CopyThrottle.UNLIMITED.throttle(in) == in);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        CopyThrottle.UNLIMITED.report(new StreamTaskListener(log, StandardCharsets.UTF_8));
+        assertEquals(0, log.size());
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link DownloadURL}
+ */
+public class DownloadURLTest {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final byte[] data = new byte[1000 * 1000 + 7];
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicBoolean stalled = new AtomicBoolean();
+    private HttpServer server;
+    private final HttpConnectionPool.Ref pool = new HttpConnectionPool.Ref("test", 4);
+
+    @Before
+    public void startServer() throws IOException {
+        new Random(1).nextBytes(data);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ranged", exchange -> serve(exchange, data, true, true));
+        server.createContext("/plain", exchange -> serve(exchange, data, false, false));
+        server.createContext("/empty", exchange -> serve(exchange, new byte[0], true, true));
+        server.createContext("/empty-without-size", exchange -> serve(exchange, new byte[0], true, false));
+        server.createContext("/stalled", exchange -> {
+            if (stalled.compareAndSet(false, true)) {
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            serve(exchange, data, false, false);
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws Exception {
+        pool.close(FilePath.localChannel);
+        server.stop(0);
+    }
+
+    /**
+     * @param tellsSize whether to tell the size of the content when rejecting a range as not satisfiable
+     */
+    private void serve(HttpExchange exchange, byte[] content, boolean supportsRanges, boolean tellsSize) throws IOException {
+        requests.incrementAndGet();
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher m = (range != null) ? RANGE.matcher(range) : null;
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (supportsRanges && m != null && m.matches()) {
+                rangeRequests.incrementAndGet();
+                int start = Integer.parseInt(m.group(1));
+                if (start >= content.length) {
+                    if (tellsSize) {
+                        exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+                    }
+                    exchange.sendResponseHeaders(416, -1);
+                    return;
+                }
+                int end = Math.min(Integer.parseInt(m.group(2)), content.length - 1);
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+                exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(206, end - start + 1);
+                os.write(content, start, end - start + 1);
+            } else {
+                exchange.sendResponseHeaders(200, content.length > 0 ? content.length : -1);
+                os.write(content);
+            }
+        }
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    public void downloadInRanges() throws Exception {
+        File f = new File(tmp.getRoot(), "sub/file.bin");
+        byte[] digest = new DownloadURL(url("/ranged"), TaskListener.NULL, true, 4, 100 * 1000, pool, 0).invoke(f, null);
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), digest);
+        assertEquals(11, rangeRequests.get());
+    }
+
+    @Test
+    public void fallBackToSingleStream() throws Exception {
+        File f = new File(tmp.getRoot(), "file.bin");
+        byte[] digest = new DownloadURL(url("/plain"), TaskListener.NULL, true, 4, 100 * 1000, pool, 0).invoke(f, null);
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), digest);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void singleConnection() throws Exception {
+        File f = new File(tmp.getRoot(), "file.bin");
+        assertNull(new DownloadURL(url("/ranged"), TaskListener.NULL, false, 1, 100 * 1000, pool, 0).invoke(f, null));
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertEquals(1, requests.get());
+        assertEquals(0, rangeRequests.get());
+    }
+
+    @Test
+    public void resumeFromOffset() throws Exception {
+        File f = new File(tmp.getRoot(), "file.bin");
+        Files.write(f.toPath(), Arrays.copyOf(data, 250 * 1000 + 3));
+        byte[] digest = new DownloadURL(url("/ranged"), TaskListener.NULL, true, 4, 100 * 1000, pool, 250 * 1000).invoke(f, null);
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), digest);
+        assertEquals(8, rangeRequests.get());
+    }
+
+    @Test
+    public void restartWithoutRangeSupport() throws Exception {
+        File f = new File(tmp.getRoot(), "file.bin");
+        Files.write(f.toPath(), new byte[250 * 1000]);
+        byte[] digest = new DownloadURL(url("/plain"), TaskListener.NULL, true, 4, 100 * 1000, pool, 250 * 1000).invoke(f, null);
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), digest);
+    }
+
+    @Test
+    public void downloadEmptyFile() throws Exception {
+        File f = new File(tmp.getRoot(), "empty.bin");
+        byte[] digest = new DownloadURL(url("/empty"), TaskListener.NULL, true, 4, 100 * 1000, pool, 0).invoke(f, null);
+        assertTrue(f.isFile());
+        assertEquals(0, f.length());
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(new byte[0]), digest);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void downloadEmptyFileWithoutSize() throws Exception {
+        File f = new File(tmp.getRoot(), "empty.bin");
+        Files.write(f.toPath(), new byte[0]);
+        byte[] digest = new DownloadURL(url("/empty-without-size"), TaskListener.NULL, true, 4, 100 * 1000, pool, 0).invoke(f, null);
+        assertEquals(0, f.length());
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(new byte[0]), digest);
+        // requested again without a range
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void resumeCompleteFile() throws Exception {
+        File f = new File(tmp.getRoot(), "file.bin");
+        Files.write(f.toPath(), data);
+        byte[] digest = new DownloadURL(url("/ranged"), TaskListener.NULL, true, 4, 100 * 1000, pool, data.length).invoke(f, null);
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), digest);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void retryStalledServer() throws Exception {
+        int timeout = HttpConnectionPool.TIMEOUT;
+        HttpConnectionPool.TIMEOUT = 500;
+        File f = new File(tmp.getRoot(), "file.bin");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        try {
+            new DownloadURL(url("/stalled"), new StreamTaskListener(log, StandardCharsets.UTF_8), false, 1, 100 * 1000, pool, 0).invoke(f, null);
+        } finally {
+            HttpConnectionPool.TIMEOUT = timeout;
+        }
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertTrue(log.toString("UTF-8").contains("Retrying download"));
+    }
+
+    @Test
+    public void connectionsAreReused() throws Exception {
+        for (int i = 0; i < 5; ++i) {
+            File f = new File(tmp.getRoot(), "file" + i + ".bin");
+            new DownloadURL(url("/plain"), TaskListener.NULL, false, 1, 100 * 1000, pool, 0).invoke(f, null);
+            assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        }
+        HttpConnectionPool.Stats stats = pool.close(FilePath.localChannel);
+        assertEquals(5, stats.requests);
+        assertTrue(stats.connections < stats.requests);
+        assertNull(pool.close(FilePath.localChannel));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import hudson.Util;
+import hudson.model.Fingerprint;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.tasks.Fingerprinter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Tests for {@link FingerprintRecorder}
+ */
+public class FingerprintRecorderTest {
+    @Rule
+    public JenkinsRule rule = new JenkinsRule();
+
+    @Test
+    public void coalesce() throws Exception {
+        FreeStyleProject src = rule.createFreeStyleProject("src");
+        FreeStyleBuild s = rule.buildAndAssertSuccess(src);
+        FreeStyleProject dst = rule.createFreeStyleProject("dst");
+        FreeStyleBuild b1 = rule.buildAndAssertSuccess(dst);
+        FreeStyleBuild b2 = rule.buildAndAssertSuccess(dst);
+        String digest = Util.toHexString(MessageDigest.getInstance("MD5").digest("content".getBytes(StandardCharsets.UTF_8)));
+        FingerprintRecorder.get().record(s, b1, Collections.singletonMap("file.txt", digest));
+        FingerprintRecorder.get().record(s, b2, Collections.singletonMap("file.txt", digest));
+        FingerprintRecorder.get().flush(b1, TaskListener.NULL);
+        FingerprintRecorder.get().flush(b2, TaskListener.NULL);
+        Fingerprint f = rule.jenkins.getFingerprintMap().get(digest);
+        assertSame(s, f.getOriginal().getRun());
+        assertEquals("file.txt", f.getFileName());
+        assertTrue(f.getRangeSet(src).includes(s.getNumber()));
+        assertTrue(f.getRangeSet(dst).includes(b1.getNumber()));
+        assertTrue(f.getRangeSet(dst).includes(b2.getNumber()));
+    }
+
+    @Test
+    public void mergeActions() throws Exception {
+        FreeStyleProject src = rule.createFreeStyleProject("src");
+        FreeStyleBuild s = rule.buildAndAssertSuccess(src);
+        FreeStyleBuild b = rule.buildAndAssertSuccess(rule.createFreeStyleProject("dst"));
+        FingerprintRecorder.get().record(s, b, Collections.singletonMap("a.txt", "0123456789abcdef0123456789abcdef"));
+        FingerprintRecorder.get().record(s, b, Collections.singletonMap("b.txt", "fedcba9876543210fedcba9876543210"));
+        // saved with builds before the copying build completes, to survive restarts.
+        for (Run<?, ?> r : new Run<?, ?>[] {s, b}) {
+            Map<String, String> records = r.getAction(Fingerprinter.FingerprintAction.class).getRecords();
+            assertEquals("0123456789abcdef0123456789abcdef", records.get("a.txt"));
+            assertEquals("fedcba9876543210fedcba9876543210", records.get("b.txt"));
+            String xml = FileUtils.readFileToString(new File(r.getRootDir(), "build.xml"), StandardCharsets.UTF_8);
+            assertTrue(xml.contains("0123456789abcdef0123456789abcdef"));
+            assertTrue(xml.contains("fedcba9876543210fedcba9876543210"));
+        }
+        assertEquals(1, b.getActions(Fingerprinter.FingerprintAction.class).size());
+        FingerprintRecorder.get().flush(b, TaskListener.NULL);
+        assertEquals(1, b.getActions(Fingerprinter.FingerprintAction.class).size());
+    }
+}
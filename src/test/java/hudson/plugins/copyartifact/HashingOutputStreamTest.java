@@ -0,0 +1,64 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests for {@link HashingOutputStream}
+ */
+public class HashingOutputStreamTest {
+    private static void assertDigest(int size, int bufferSize) throws Exception {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] digest;
+        try (HashingOutputStream os = new HashingOutputStream(out, MessageDigest.getInstance("SHA-256"), size)) {
+            for (int off = 0; off < size; off += bufferSize) {
+                os.write(data, off, Math.min(bufferSize, size - off));
+            }
+            digest = os.digest();
+        }
+        assertArrayEquals(data, out.toByteArray());
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(data), digest);
+    }
+
+    @Test
+    public void smallFilesHashedInline() throws Exception {
+        assertDigest(0, 8192);
+        assertDigest(1000, 7);
+    }
+
+    @Test
+    public void largeFilesHashedAsynchronously() throws Exception {
+        assertDigest((int) HashingOutputStream.ASYNC_THRESHOLD, 8192);
+        assertDigest(5 * 1024 * 1024 + 13, 10000);
+        assertDigest(3 * 1024 * 1024 + 1, 1);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link LocalCopy}
+ */
+public class LocalCopyTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final byte[] data = new byte[1000 * 1000 + 7];
+
+    private File source() throws Exception {
+        new Random(1).nextBytes(data);
+        File src = tmp.newFile("src.bin");
+        Files.write(src.toPath(), data);
+        return src;
+    }
+
+    @Test
+    public void copy() throws Exception {
+        File src = source();
+        File f = new File(tmp.getRoot(), "sub/dst.bin");
+        LocalCopy.Result result = new LocalCopy(src.getAbsolutePath(), src.length(), src.lastModified(), 0, true).invoke(f, null);
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertArrayEquals(MessageDigest.getInstance("MD5").digest(data), result.digest);
+    }
+
+    @Test
+    public void resume() throws Exception {
+        File src = source();
+        File f = new File(tmp.getRoot(), "dst.bin");
+        Files.write(f.toPath(), Arrays.copyOf(data, 300 * 1000 + 5));
+        LocalCopy.Result result = new LocalCopy(src.getAbsolutePath(), src.length(), src.lastModified(), 300 * 1000, false).invoke(f, null);
+        assertArrayEquals(data, Files.readAllBytes(f.toPath()));
+        assertNull(result.digest);
+    }
+
+    @Test
+    public void otherFile() throws Exception {
+        File src = source();
+        File f = new File(tmp.getRoot(), "dst.bin");
+        assertNull(new LocalCopy(src.getAbsolutePath(), src.length() + 1, src.lastModified(), 0, true).invoke(f, null));
+        assertNull(new LocalCopy(src.getAbsolutePath(), src.length(), src.lastModified() + 1000, 0, true).invoke(f, null));
+        assertNull(new LocalCopy(new File(tmp.getRoot(), "missing").getAbsolutePath(), 0, 0, 0, true).invoke(f, null));
+        assertFalse(f.exists());
+    }
+}
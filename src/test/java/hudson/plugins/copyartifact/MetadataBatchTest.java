@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link MetadataBatch}
+ */
+public class MetadataBatchTest {
+    private static final long TIMESTAMP = 1500000000000L;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void appliedInChunks() throws Exception {
+        File dir = tmp.newFolder();
+        for (String name : new String[] {"a", "b", "sub/c"}) {
+            new FilePath(dir).child(name).write("content", "UTF-8");
+        }
+        MetadataBatch batch = new MetadataBatch(new FilePath(dir), TaskListener.NULL, 2);
+        batch.add(FileMetadata.file("a", TIMESTAMP, -1));
+        assertNotEquals(TIMESTAMP, new File(dir, "a").lastModified());
+        batch.add(FileMetadata.file("b", TIMESTAMP, -1));
+        assertEquals(TIMESTAMP, new File(dir, "a").lastModified());
+        assertEquals(TIMESTAMP, new File(dir, "b").lastModified());
+        batch.add(FileMetadata.file("sub/c", TIMESTAMP, -1));
+        assertNotEquals(TIMESTAMP, new File(dir, "sub/c").lastModified());
+        batch.flush();
+        assertEquals(TIMESTAMP, new File(dir, "sub/c").lastModified());
+    }
+
+    @Test
+    public void modesAndSymlinks() throws Exception {
+        Assume.assumeFalse(Functions.isWindows());
+        File dir = tmp.newFolder();
+        new FilePath(dir).child("script.sh").write("#!/bin/sh", "UTF-8");
+        MetadataBatch batch = new MetadataBatch(new FilePath(dir), TaskListener.NULL);
+        batch.add(FileMetadata.file("script.sh", TIMESTAMP, 0755));
+        batch.add(FileMetadata.symlink("links/script", "../script.sh"));
+        batch.flush();
+        assertEquals(0755, new FilePath(dir).child("script.sh").mode() & 0777);
+        assertEquals("../script.sh", new FilePath(dir).child("links/script").readLink());
+    }
+
+    @Test
+    public void refusesPathsOutsideOfTarget() throws Exception {
+        File dir = tmp.newFolder();
+        MetadataBatch batch = new MetadataBatch(new FilePath(dir), TaskListener.NULL);
+        batch.add(FileMetadata.symlink("../escaped", "somewhere"));
+        assertThrows(IOException.class, batch::flush);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, Jenkins project contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package hudson.plugins.copyartifact;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.FilePath;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link WireCompression}
+ */
+public class WireCompressionTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void compressedTypes() {
+        assertTrue(WireCompression.isCompressedType("lib/foo.jar"));
+        assertTrue(WireCompression.isCompressedType("dist.TAR.GZ"));
+        assertFalse(WireCompression.isCompressedType("report.json"));
+        assertFalse(WireCompression.isCompressedType("dir.zip/README"));
+    }
+
+    @Test
+    public void sampledEntropy() throws Exception {
+        byte[] random = new byte[100000];
+        new Random(1).nextBytes(random);
+        byte[] text = "The quick brown fox jumps over the lazy dog. ".repeat(2000).getBytes(StandardCharsets.US_ASCII);
+        assertFalse(WireCompression.isWorthCompressing(WireCompression.sampleable(new ByteArrayInputStream(random)), "data.bin"));
+        assertTrue(WireCompression.isWorthCompressing(WireCompression.sampleable(new ByteArrayInputStream(text)), "data.bin"));
+        assertFalse(WireCompression.isWorthCompressing(WireCompression.sampleable(new ByteArrayInputStream(text)), "data.zip"));
+    }
+
+    @Test
+    public void roundTripWithStoredParts() throws Exception {
+        byte[] random = new byte[300000];
+        new Random(1).nextBytes(random);
+        byte[] text = "The quick brown fox jumps over the lazy dog. ".repeat(5000).getBytes(StandardCharsets.US_ASCII);
+        File f = new File(tmp.getRoot(), "file.bin");
+        WireCompression compression = new WireCompression();
+        try (WireCompression.Compressor os = compression.compress(PartialFiles.open(new FilePath(f), 0, true))) {
+            os.write(text);
+            os.setCompressing(false);
+            os.write(random);
+            os.setCompressing(true);
+            os.write(text);
+        }
+        byte[] expected = new byte[text.length * 2 + random.length];
+        System.arraycopy(text, 0, expected, 0, text.length);
+        System.arraycopy(random, 0, expected, text.length, random.length);
+        System.arraycopy(text, 0, expected, text.length + random.length, text.length);
+        assertArrayEquals(expected, Files.readAllBytes(f.toPath()));
+    }
+}